@@ -0,0 +1,152 @@
+package com.brooksideas.cfsticker.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.brooksideas.cfsticker.App;
+import com.brooksideas.cfsticker.CryptoQuote;
+import com.brooksideas.cfsticker.QuoteFormatter;
+import com.brooksideas.cfsticker.QuoteParser;
+import com.brooksideas.cfsticker.TickerStrip;
+
+/**
+ * Per-ticker normalization, formatting and ticker strip updates and
+ * painting for 1000 quotes, the work done for every ticker on every refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+    private static final int quoteCount = 1000;
+
+    private String[] symbols;
+    private double[] prices;
+    private double[] marketCaps;
+    private char[] buffer;
+    private CryptoQuote[][] quotes;
+    private TickerStrip tickerStrip;
+    private BufferedImage image;
+    private int refresh;
+
+    @Setup
+    public void setup() {
+        System.setProperty("java.awt.headless", "true");
+        buffer = new char[32];
+        symbols = Payloads.symbols(quoteCount);
+        prices = Payloads.prices(quoteCount);
+        marketCaps = Payloads.marketCaps(quoteCount);
+
+        // Two alternating refreshes so every cell changes on each update
+        quotes = new CryptoQuote[2][quoteCount];
+        tickerStrip = new TickerStrip(new Color(0x22ff22), new Color(0xff2222));
+
+        for (int i = 0; i < quoteCount; i++) {
+            for (int r = 0; r < 2; r++) {
+                CryptoQuote quote = new CryptoQuote(symbols[i]);
+                quote.setRank(i + 1);
+                quote.setPrice(prices[i] * (1.0 + r * 0.01));
+                quote.setMarketCap(marketCaps[i]);
+                quote.setPercentChange24h(r == 0 ? 1.0 : -1.0);
+                quotes[r][i] = quote;
+            }
+
+            tickerStrip.addTicker(symbols[i]);
+        }
+
+        tickerStrip.setSize(tickerStrip.getPreferredSize());
+        image = new BufferedImage(tickerStrip.getWidth(), tickerStrip.getHeight(), BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Benchmark
+    public void roundPrice(Blackhole blackhole) {
+        for (double price : prices) {
+            blackhole.consume(QuoteParser.roundPrice(price));
+        }
+    }
+
+    @Benchmark
+    public void formatPrice(Blackhole blackhole) {
+        for (double price : prices) {
+            blackhole.consume(App.formatPrice(price));
+        }
+    }
+
+    @Benchmark
+    public void formatMarketCap(Blackhole blackhole) {
+        for (double marketCap : marketCaps) {
+            blackhole.consume(App.formatMarketCap(marketCap));
+        }
+    }
+
+    @Benchmark
+    public int writePrice() {
+        int length = 0;
+
+        for (double price : prices) {
+            length += QuoteFormatter.writePrice(price, buffer, 0);
+        }
+
+        return length;
+    }
+
+    @Benchmark
+    public int writeMarketCap() {
+        int length = 0;
+
+        for (double marketCap : marketCaps) {
+            length += QuoteFormatter.writeMarketCap(marketCap, buffer, 0);
+        }
+
+        return length;
+    }
+
+    @Benchmark
+    public void tickerStripUpdate() {
+        CryptoQuote[] next = quotes[refresh++ & 1];
+
+        for (int i = 0; i < quoteCount; i++) {
+            tickerStrip.setQuote(symbols[i], next[i]);
+        }
+
+        tickerStrip.repaintChanged();
+    }
+
+    @Benchmark
+    public void tickerStripPaint() {
+        Graphics2D g = image.createGraphics();
+
+        try {
+            tickerStrip.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Benchmark
+    public void tickerStripPaintView() {
+        // A screen wide viewport scrolled to the middle of the strip
+        Graphics2D g = image.createGraphics();
+
+        try {
+            g.setClip(image.getWidth() / 2, 0, 1920, image.getHeight());
+            tickerStrip.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+}
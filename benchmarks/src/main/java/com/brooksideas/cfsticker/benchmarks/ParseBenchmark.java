@@ -0,0 +1,105 @@
+package com.brooksideas.cfsticker.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.brooksideas.cfsticker.CryptoQuote;
+import com.brooksideas.cfsticker.FiatQuote;
+import com.brooksideas.cfsticker.QuoteParser;
+import com.brooksideas.cfsticker.StockQuote;
+
+/**
+ * Response parsing for 1, 100 and 5000 symbol payloads.
+ * cmcTree is the old Map.class tree walk, kept as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"1", "100", "5000"})
+    public int symbolCount;
+
+    private ObjectMapper mapper;
+    private String[] symbols;
+    private byte[] cmcPayload;
+    private byte[] ccaPayload;
+    private byte[] iexPayload;
+    private HashMap<String, CryptoQuote> cryptoQuotes;
+    private HashMap<String, FiatQuote> fiatQuotes;
+    private HashMap<String, StockQuote> stockQuotes;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapper();
+        symbols = Payloads.symbols(symbolCount);
+        cmcPayload = Payloads.cmc(symbols);
+        ccaPayload = Payloads.cca(symbols);
+        iexPayload = Payloads.iex(symbols);
+        cryptoQuotes = new HashMap<String, CryptoQuote>();
+        fiatQuotes = new HashMap<String, FiatQuote>();
+        stockQuotes = new HashMap<String, StockQuote>();
+
+        for (String symbol : symbols) {
+            cryptoQuotes.put(symbol, new CryptoQuote(symbol));
+            fiatQuotes.put(symbol, new FiatQuote(symbol));
+            stockQuotes.put(symbol, new StockQuote(symbol));
+        }
+    }
+
+    @Benchmark
+    public Object cmcStreaming() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(cmcPayload)) {
+            return QuoteParser.parseCryptoQuotes(parser, cryptoQuotes);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void cmcTree(Blackhole blackhole) throws IOException {
+        Map<String, Object> map = mapper.readValue(cmcPayload, Map.class);
+        Map<String, Object> data = (Map<String, Object>)map.get("data");
+
+        for (String symbol : symbols) {
+            Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
+            Map<String, Object> quote = (Map<String, Object>)symbolData.get("quote");
+            Map<String, Object> usd = (Map<String, Object>)quote.get("USD");
+            blackhole.consume(symbolData.get("name"));
+            blackhole.consume(symbolData.get("cmc_rank"));
+            blackhole.consume(Double.valueOf("" + usd.get("price").toString()));
+            blackhole.consume(Double.valueOf("" + usd.get("market_cap").toString()));
+            blackhole.consume(Double.valueOf("" + usd.get("percent_change_24h").toString()));
+        }
+    }
+
+    @Benchmark
+    public Object ccaStreaming() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(ccaPayload)) {
+            return QuoteParser.parseFiatQuotes(parser, fiatQuotes);
+        }
+    }
+
+    @Benchmark
+    public Object iexStreaming() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(iexPayload)) {
+            return QuoteParser.parseStockQuotes(parser, stockQuotes);
+        }
+    }
+}
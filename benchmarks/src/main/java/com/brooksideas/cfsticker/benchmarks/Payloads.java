@@ -0,0 +1,115 @@
+package com.brooksideas.cfsticker.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Provider response bodies in each provider's JSON shape for benchmarks.
+ * The same seed always gives the same payload.
+ */
+public class Payloads {
+    public static String[] symbols(int count) {
+        String[] symbols = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            symbols[i] = "S" + i;
+        }
+
+        return symbols;
+    }
+
+    public static byte[] cmc(String[] symbols) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"status\":{\"timestamp\":\"2019-08-25T03:52:39.810Z\",\"error_code\":0,\"error_message\":null,\"elapsed\":7,\"credit_count\":1},\"data\":{");
+
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = symbols[i];
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(symbol).append("\":{\"id\":").append(i + 1)
+                .append(",\"name\":\"").append(symbol).append(" Coin\",\"symbol\":\"").append(symbol)
+                .append("\",\"slug\":\"").append(symbol.toLowerCase()).append("\",\"num_market_pairs\":102,\"date_added\":\"2017-10-01T00:00:00.000Z\",\"tags\":[\"mineable\"],")
+                .append("\"max_supply\":45000000000,\"circulating_supply\":25927070538,\"total_supply\":31112483745,\"is_market_cap_included_in_calc\":1,\"platform\":null,")
+                .append("\"cmc_rank\":").append(1 + random.nextInt(5000))
+                .append(",\"last_updated\":\"2019-08-25T03:52:05.000Z\",\"quote\":{\"USD\":{\"price\":").append(Math.exp(-3.0 + 13.0 * random.nextDouble()))
+                .append(",\"volume_24h\":101258629.075106,\"percent_change_1h\":2.79196,\"percent_change_24h\":").append(random.nextGaussian() * 5.0)
+                .append(",\"percent_change_7d\":11.2303,\"market_cap\":").append(Math.exp(16.0 + 11.0 * random.nextDouble()))
+                .append(",\"last_updated\":\"2019-08-25T03:52:05.000Z\"}}}");
+        }
+
+        json.append("}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] cca(String[] symbols) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{");
+
+        for (int i = 0; i < symbols.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(symbols[i]).append("_USD\":").append(0.05 + 1.5 * random.nextDouble());
+        }
+
+        json.append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] iex(String[] symbols) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{");
+
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = symbols[i];
+            double price = Math.exp(-3.0 + 13.0 * random.nextDouble());
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(symbol).append("\":{\"quote\":{\"symbol\":\"").append(symbol)
+                .append("\",\"companyName\":\"").append(symbol).append(" Inc\",\"calculationPrice\":\"close\",\"open\":").append(price)
+                .append(",\"openTime\":1560951000327,\"close\":").append(price).append(",\"latestPrice\":").append(price)
+                .append(",\"latestSource\":\"Close\",\"latestTime\":\"June 19, 2019\",\"latestUpdate\":1560974400350,\"latestVolume\":31665176,")
+                .append("\"previousClose\":186.41,\"change\":0.7,\"changePercent\":").append(random.nextGaussian() * 0.02)
+                .append(",\"avgTotalVolume\":40442117,\"marketCap\":").append((long)Math.exp(16.0 + 11.0 * random.nextDouble()))
+                .append(",\"peRatio\":null,\"week52High\":191.32,\"week52Low\":143.46,\"ytdChange\":0.207337}}");
+        }
+
+        json.append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns prices spread across all three rounding tiers.
+     */
+    public static double[] prices(int count) {
+        Random random = new Random(42);
+        double[] prices = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            prices[i] = Math.exp(-3.0 + 13.0 * random.nextDouble());
+        }
+
+        return prices;
+    }
+
+    /**
+     * Returns market caps in millions spread across all six format tiers.
+     */
+    public static double[] marketCaps(int count) {
+        Random random = new Random(43);
+        double[] marketCaps = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            marketCaps[i] = Math.round(Math.exp(-1.0 + 15.0 * random.nextDouble()) * 100.0) / 100.0;
+        }
+
+        return marketCaps;
+    }
+}
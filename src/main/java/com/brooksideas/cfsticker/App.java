@@ -5,20 +5,19 @@ import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
  * CryptoFiatStockTicker
@@ -41,13 +40,6 @@ import com.fasterxml.jackson.databind.SerializationFeature;
  *
  */
 public class App {
-    private static final String cmcTickerUrl = "https://pro-api.coinmarketcap.com/v1/cryptocurrency/quotes/latest?symbol=";
-    // XXX Should use header X-CMC_PRO_API_KEY instead of query arg
-    private static final String cmcTailUrl = "&convert=USD&aux=cmc_rank,market_cap_by_total_supply&CMC_PRO_API_KEY=";
-    private static final String ccaBaseUrl = "https://free.currconv.com/api/v7/convert?q=";
-    private static final String ccaTailUrl = "_USD&compact=ultra&apiKey=";
-    private static final String iexBaseUrl = "https://cloud.iexapis.com/v1/stock/";
-    private static final String iexTailUrl = "/quote/?token=";
     private static final String cryptoRadioLabel = "Crypto";
     private static final String fiatRadioLabel = "Fiat";
     private static final String stockRadioLabel = "Stock";
@@ -72,19 +64,23 @@ public class App {
     private TreeMap<String, FiatQuote> fiatQuotes;
     private TreeMap<String, StockQuote> stockQuotes;
     private PlaceholderTextField symbolTextField;
-    private HashMap<String, JPanel> tickerPanels;
-    private HashMap<String, JLabel> symbolLabels;
-    private HashMap<String, JLabel> priceLabels;
+    private TickerStrip tickerStrip;
+    private JScrollPane tickerScrollPane;
+    private ArrayList<Quote> changedQuotes = new ArrayList<Quote>();
+    private int windowTickerCount = -1;
+    private long startNanos;
+    private boolean cachedQuotesShown;
+    private boolean liveQuotesShown;
+    private Metrics metrics = new Metrics();
+    private LatencyHistogram updateTickersLatency = metrics.getLatency("updateTickers");
+    private LatencyHistogram updateWindowLatency = metrics.getLatency("updateWindow");
     private Color upColor;
     private Color downColor;
     private boolean isCrypto;
     private boolean isFiat;
     private boolean isStock;
-    private int gridx;
     private int updateIntervalSeconds;
-    private String cmcApiKey;
-    private String ccaApiKey;
-    private String iexApiKey;
+    private QuoteEngine quoteEngine;
 
     public static void main(String[] args) {
         App app = new App();
@@ -92,70 +88,24 @@ public class App {
     }
 
     public void run() {
-        String symbol;
         String text;
 
-        // JSON response mapper
-        mapper = new ObjectMapper();
+        startNanos = System.nanoTime();
 
-        // Read config file
-        try {
-            byte[] configJson = Files.readAllBytes(Paths.get(configFileName));
-            config = mapper.readValue(configJson, Config.class);
-        } catch (IOException ioe) {
-            System.err.println(ioe);
-            System.exit(1);
-        }
+        // Mapper, config, quote cache and icons load in the background while the window is built
+        CompletableFuture<ObjectMapper> mapperFuture = CompletableFuture.supplyAsync(ObjectMapper::new);
+        CompletableFuture<Config> configFuture = mapperFuture.thenApply(this::readConfig);
+        CompletableFuture<QuoteSnapshot> cacheFuture = mapperFuture.thenCombine(configFuture, this::readQuoteCache);
+        CompletableFuture<ImageIcon> addIcon = loadIcon(addImageFileName, addButtonLabel);
+        CompletableFuture<ImageIcon> removeIcon = loadIcon(removeImageFileName, removeButtonLabel);
+        CompletableFuture<ImageIcon> updateIcon = loadIcon(updateImageFileName, updateButtonLabel);
+        CompletableFuture<ImageIcon> saveIcon = loadIcon(saveImageFileName, saveButtonLabel);
+        CompletableFuture.allOf(addIcon, removeIcon, updateIcon, saveIcon).thenRun(() -> reportStartup("Icons loaded"));
 
         // Colors
         upColor = new Color(0x22ff22);
         downColor = new Color(0xff2222);
 
-        // Update quotes interval in seconds
-        int secs = config.getUpdateIntervalSeconds();
-
-        if (secs < minUpdateIntervalSeconds) {
-            updateIntervalSeconds = minUpdateIntervalSeconds;
-        } else {
-            updateIntervalSeconds = secs;
-        }
-
-        ccaApiKey = config.getCcaApiKey();
-        cmcApiKey = config.getCmcApiKey();
-        iexApiKey = config.getIexApiKey();
-
-        // Initial cryptos
-        cryptoQuotes = new TreeMap<String, CryptoQuote>();
-        ArrayList<String> cryptos = config.getCryptos();
-
-        for (String crypto : cryptos) {
-            symbol = crypto.toUpperCase();
-            cryptoQuotes.put(symbol, new CryptoQuote(symbol));
-        }
-
-        // Initial fiats
-        fiatQuotes = new TreeMap<String, FiatQuote>();
-        ArrayList<String> fiats = config.getFiats();
-
-        for (String fiat : fiats) {
-            symbol = fiat.toUpperCase();
-            fiatQuotes.put(symbol, new FiatQuote(symbol));
-        }
-
-        // Initial stocks
-        stockQuotes = new TreeMap<String, StockQuote>();
-        ArrayList<String> stocks = config.getStocks();
-
-        for (String stock : stocks) {
-            symbol = stock.toUpperCase();
-            stockQuotes.put(symbol, new StockQuote(symbol));
-        }
-
-        // Component references
-        tickerPanels = new HashMap<String, JPanel>();
-        symbolLabels = new HashMap<String, JLabel>();
-        priceLabels = new HashMap<String, JLabel>();
-
         // Main panel
         mainPanel = new JPanel();
         GridBagLayout layout = new GridBagLayout();
@@ -248,17 +198,7 @@ public class App {
 
         // Add button
         JButton addButton = new JButton();
-        BufferedImage addImage = null;
-
-        try {
-            addImage = ImageIO.read(getClass().getResource(addImageFileName));
-        } catch (IOException ioe) {
-            System.err.println(ioe);
-            System.exit(1);
-        }
-
-        ImageIcon addIcon = new ImageIcon(addImage, addButtonLabel);
-        addButton.setIcon(addIcon);
+        setIconWhenLoaded(addButton, addIcon, addButtonLabel);
         addButton.setToolTipText(addButtonLabel);
         addButton.setForeground(Color.white);
         addButton.setBackground(Color.black);
@@ -272,17 +212,7 @@ public class App {
 
         // Remove button
         JButton removeButton = new JButton();
-        BufferedImage removeImage = null;
-
-        try {
-            removeImage = ImageIO.read(getClass().getResource(removeImageFileName));
-        } catch (IOException ioe) {
-            System.err.println(ioe);
-            System.exit(1);
-        }
-
-        ImageIcon removeIcon = new ImageIcon(removeImage, removeButtonLabel);
-        removeButton.setIcon(removeIcon);
+        setIconWhenLoaded(removeButton, removeIcon, removeButtonLabel);
         removeButton.setToolTipText(removeButtonLabel);
         removeButton.setForeground(Color.white);
         removeButton.setBackground(Color.black);
@@ -296,17 +226,7 @@ public class App {
 
         // Update button
         JButton updateButton = new JButton();
-        BufferedImage updateImage = null;
-
-        try {
-            updateImage = ImageIO.read(getClass().getResource(updateImageFileName));
-        } catch (IOException ioe) {
-            System.err.println(ioe);
-            System.exit(1);
-        }
-
-        ImageIcon updateIcon = new ImageIcon(updateImage, updateButtonLabel);
-        updateButton.setIcon(updateIcon);
+        setIconWhenLoaded(updateButton, updateIcon, updateButtonLabel);
         updateButton.setToolTipText(updateButtonLabel);
         updateButton.setForeground(Color.white);
         updateButton.setBackground(Color.black);
@@ -321,17 +241,7 @@ public class App {
 
         // Save button
         JButton saveButton = new JButton();
-        BufferedImage saveImage = null;
-
-        try {
-            saveImage = ImageIO.read(getClass().getResource(saveImageFileName));
-        } catch (IOException ioe) {
-            System.err.println(ioe);
-            System.exit(1);
-        }
-
-        ImageIcon saveIcon = new ImageIcon(saveImage, saveButtonLabel);
-        saveButton.setIcon(saveIcon);
+        setIconWhenLoaded(saveButton, saveIcon, saveButtonLabel);
         saveButton.setToolTipText(saveButtonLabel);
         saveButton.setForeground(Color.white);
         saveButton.setBackground(Color.black);
@@ -359,46 +269,33 @@ public class App {
         actionPanel.add(closeButton, actionGbc);
 
         // Action subpanel
-        gridx = 0;
-        mainGbc.gridx = gridx;
+        mainGbc.gridx = 0;
         mainGbc.gridy = 0;
         mainGbc.gridwidth = 2;
         mainGbc.gridheight = 3;
         mainPanel.add(actionPanel, mainGbc);
 
-        // Tickers
-        JPanel tickerPanel;
-        gridx = 2;
+        // Tickers painted by one component
+        tickerStrip = new TickerStrip(upColor, downColor);
+
+        // Only the tickers in the viewport are painted
+        tickerScrollPane = new JScrollPane(tickerStrip, JScrollPane.VERTICAL_SCROLLBAR_NEVER, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        tickerScrollPane.setBorder(null);
+        tickerScrollPane.setBackground(Color.black);
+        tickerScrollPane.getViewport().setBackground(Color.black);
+        mainGbc.gridx = 2;
         mainGbc.gridy = 0;
         mainGbc.gridwidth = 1;
-        mainGbc.gridheight = 2;
-
-        // Crypto tickers
-        for (Map.Entry<String, CryptoQuote> entry : cryptoQuotes.entrySet()) {
-            symbol = entry.getKey();
-            tickerPanel = createTicker(symbol);
-            mainGbc.gridx = gridx;
-            mainPanel.add(tickerPanel, mainGbc);
-            gridx++;
-        }
-
-        // Fiat tickers
-        for (Map.Entry<String, FiatQuote> entry : fiatQuotes.entrySet()) {
-            symbol = entry.getKey();
-            tickerPanel = createTicker(symbol);
-            mainGbc.gridx = gridx;
-            mainPanel.add(tickerPanel, mainGbc);
-            gridx++;
-        }
-
-        // Stock tickers
-        for (Map.Entry<String, StockQuote> entry : stockQuotes.entrySet()) {
-            symbol = entry.getKey();
-            tickerPanel = createTicker(symbol);
-            mainGbc.gridx = gridx;
-            mainPanel.add(tickerPanel, mainGbc);
-            gridx++;
-        }
+        mainGbc.gridheight = 3;
+        mainGbc.weightx = 1.0;
+        mainGbc.weighty = 1.0;
+        mainGbc.fill = GridBagConstraints.BOTH;
+        mainPanel.add(tickerScrollPane, mainGbc);
+        tickerStrip.setFirstQuotesPaintedListener(new Runnable() {
+            public void run() {
+                reportStartup("First quotes painted" + (liveQuotesShown ? "" : " from cache"));
+            }
+        });
 
         // Window frame
         window = new JFrame();
@@ -408,595 +305,326 @@ public class App {
         updateWindow();
         window.setVisible(true);
 
-        // Initial update
-        updateAll();
+        reportStartup("Window shown");
 
         // Focus
         symbolTextField.requestFocusInWindow();
 
-        // Interval update
-        Timer timer = new Timer(updateIntervalSeconds * 1000, updateListener);
-        timer.setRepeats(true);
-        timer.start();
-    }
-
-    public void updateAll() {
-        getCryptoQuotes();
-        getFiatQuotes();
-        getStockQuotes();
-        updateTickers();
-        updateWindow();
-    }
-
-    public void getCryptoQuotes() {
-        URL url = null;
-        String symbol = "";
-        CryptoQuote cryptoQuote = null;
-        Map<String, Object> map = null;
-        int errorCode = 0;
-        String name = "";
-        int rank = 0;
-        double price = 0.0;
-        double marketCap = 0.0;
-        double percentChange24h = 0.0;
-
-        for (Map.Entry<String, CryptoQuote> entry : cryptoQuotes.entrySet()) {
-            symbol = entry.getKey();
-            cryptoQuote = entry.getValue();
-
-            // XXX Build comma separated list and get all with one url
-            try {
-                url = new URL(cmcTickerUrl + symbol + cmcTailUrl + cmcApiKey);
-            } catch (MalformedURLException mfue) {
-                System.err.println(mfue);
-                continue;
-            }
-
-            try {
-                map = mapper.readValue(url, Map.class);
-            } catch (IOException ioe) {
-                System.err.println(ioe);
-                continue;
-            }
-
-            errorCode = getCryptoErrorCode(map);
-
-            if (errorCode != 0) {
-                System.err.println("Crypto quote request returned error code: " + errorCode);
-                continue;
-            }
-
-            name = getCryptoName(map, symbol);
-            cryptoQuote.setName(name);
-
-            rank = getCryptoRank(map, symbol);
-            cryptoQuote.setRank(rank);
-
-            price = getCryptoPrice(map, symbol);
-            cryptoQuote.setPrice(price);
-
-            marketCap = getCryptoMarketCap(map, symbol);
-            cryptoQuote.setMarketCap(marketCap);
-
-            percentChange24h = getCryptoPercentChange24h(map, symbol);
-            cryptoQuote.setPercentChange24h(percentChange24h);
-        }
-    }
-
-    public void getFiatQuotes() {
-        URL url = null;
-        String symbol = "";
-        FiatQuote fiatQuote = null;
-        Map<String, Object> map = null;
-        String name = "";
-        double price = 0.0;
-        double marketCap = 0.0;
-        double percentChange24h = 0.0;
-
-        for (Map.Entry<String, FiatQuote> entry : fiatQuotes.entrySet()) {
-            symbol = entry.getKey();
-            fiatQuote = entry.getValue();
-
-            try {
-                url = new URL(ccaBaseUrl + symbol + ccaTailUrl + ccaApiKey);
-            } catch (MalformedURLException mfue) {
-                System.err.println(mfue);
-                continue;
-            }
-
-            try {
-                map = mapper.readValue(url, Map.class);
-            } catch (IOException ioe) {
-                System.err.println(ioe);
-                continue;
-            }
+        // Config
+        final QuoteSnapshot cachedQuotes;
 
-            fiatQuote.setName(name);
-            String quoteName = symbol + "_USD";
-            price = getFiatPrice(map, quoteName);
-            fiatQuote.setPrice(price);
-            fiatQuote.setMarketCap(marketCap);
-            fiatQuote.setPercentChange24h(percentChange24h);
+        try {
+            mapper = mapperFuture.join();
+            config = configFuture.join();
+            cachedQuotes = cacheFuture.join();
+        } catch (CompletionException ce) {
+            System.err.println(ce.getCause());
+            System.exit(1);
+            return;
         }
-    }
 
-    public void getStockQuotes() {
-        URL url = null;
-        String symbol = "";
-        StockQuote stockQuote = null;
-        Map<String, Object> map = null;
-        String name = "";
-        double price = 0.0;
-        double marketCap = 0.0;
-        double percentChange24h = 0.0;
+        reportStartup("Config loaded");
 
-        for (Map.Entry<String, StockQuote> entry : stockQuotes.entrySet()) {
-            symbol = entry.getKey();
-            stockQuote = entry.getValue();
-
-            try {
-                url = new URL(iexBaseUrl + symbol + iexTailUrl + iexApiKey);
-            } catch (MalformedURLException mfue) {
-                System.err.println(mfue);
-                continue;
-            }
-
-            try {
-                map = mapper.readValue(url, Map.class);
-            } catch (IOException ioe) {
-                System.err.println(ioe);
-                continue;
+        // Tickers and quotes are only touched on the Event Dispatch Thread
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                startQuotes(cachedQuotes);
             }
-
-            name = getStockName(map);
-            stockQuote.setName(name);
-
-            price = getStockPrice(map);
-            stockQuote.setPrice(price);
-
-            marketCap = getStockMarketCap(map);
-            stockQuote.setMarketCap(marketCap);
-
-            percentChange24h = getStockPercentChange24h(map);
-            stockQuote.setPercentChange24h(percentChange24h);
-        }
+        });
     }
 
-    public void updateTickers() {
+    /**
+     * Shows the configured tickers with any cached quotes and starts the
+     * quote engine. Called on the Event Dispatch Thread once the config is
+     * loaded. The cached quotes may be null.
+     */
+    private void startQuotes(QuoteSnapshot cachedQuotes) {
         String symbol;
-        CryptoQuote cryptoQuote;
-        FiatQuote fiatQuote;
-        StockQuote stockQuote;
-        String name;
-        int rank;
-        double price;
-        String sPrice;
-        double marketCap;
-        String sMarketCap;
-        double percentChange24h;
-        String text;
 
-        // Cryptos
-        for (Map.Entry<String, CryptoQuote> entry : cryptoQuotes.entrySet()) {
-            symbol = entry.getKey();
-            cryptoQuote = entry.getValue();
-            name = cryptoQuote.getName();
-            rank = cryptoQuote.getRank();
-            price = cryptoQuote.getPrice();
-            sPrice = formatPrice(price);
-            marketCap = cryptoQuote.getMarketCap();
-            sMarketCap = formatMarketCap(marketCap);
-            percentChange24h = cryptoQuote.getPercentChange24h();
-
-            // Symbol label
-            text = "<html><b>" + symbol + "</b><sup>" + rank + "</sup></html>";
-            JLabel symbolLabel = symbolLabels.get(symbol);
-
-            if (symbolLabel != null) {
-                symbolLabel.setText(text);
-            } else {
-                System.err.println("Could not find symbolLabel for symbol: " + symbol);
-                continue;
-            }
-
-            // Price label
-            text = "<html><p style=\"text-align: center\"><span style=\"font-size: 1.3em\"><b>" + sPrice + "</b></span><br/><span style=\"font-size: 0.8em\">" + sMarketCap + "</span></p></html>";
-            JLabel priceLabel = priceLabels.get(symbol);
-
-            if (priceLabel != null) {
-                priceLabel.setText(text);
-            } else {
-                System.err.println("Could not find priceLabel for symbol: " + symbol);
-                continue;
-            }
+        // Update quotes interval in seconds
+        int secs = config.getUpdateIntervalSeconds();
 
-            if (percentChange24h > 0.5) {
-                priceLabel.setForeground(upColor);
-            } else if (percentChange24h < -0.5) {
-                priceLabel.setForeground(downColor);
-            } else {
-                priceLabel.setForeground(Color.white);
-            }
+        if (secs < minUpdateIntervalSeconds) {
+            updateIntervalSeconds = minUpdateIntervalSeconds;
+        } else {
+            updateIntervalSeconds = secs;
         }
 
-        // Fiats
-        for (Map.Entry<String, FiatQuote> entry : fiatQuotes.entrySet()) {
-            symbol = entry.getKey();
-            fiatQuote = entry.getValue();
-            name = fiatQuote.getName();
-            price = fiatQuote.getPrice();
-            sPrice = formatPrice(price);
-            percentChange24h = fiatQuote.getPercentChange24h();
-
-            // Symbol label
-            text = "<html><b>" + symbol + "</b></html>";
-            JLabel symbolLabel = symbolLabels.get(symbol);
-
-            if (symbolLabel != null) {
-                symbolLabel.setText(text);
-            } else {
-                System.err.println("Could not find symbolLabel for symbol: " + symbol);
-                continue;
-            }
+        // Initial cryptos
+        cryptoQuotes = new TreeMap<String, CryptoQuote>();
+        ArrayList<String> cryptos = config.getCryptos();
 
-            // Price label
-            text = "<html><p style=\"text-align: center\"><span style=\"font-size: 1.3em\"><b>" + sPrice + "</b></span><br/><span style=\"font-size: 0.8em\">-</span></p></html>";
-            JLabel priceLabel = priceLabels.get(symbol);
+        for (String crypto : cryptos) {
+            symbol = crypto.toUpperCase();
+            cryptoQuotes.put(symbol, new CryptoQuote(symbol));
+        }
 
-            if (priceLabel != null) {
-                priceLabel.setText(text);
-            } else {
-                System.err.println("Could not find priceLabel for symbol: " + symbol);
-                continue;
-            }
+        // Initial fiats
+        fiatQuotes = new TreeMap<String, FiatQuote>();
+        ArrayList<String> fiats = config.getFiats();
 
-            if (percentChange24h > 0.5) {
-                priceLabel.setForeground(upColor);
-            } else if (percentChange24h < -0.5) {
-                priceLabel.setForeground(downColor);
-            } else {
-                priceLabel.setForeground(Color.white);
-            }
+        for (String fiat : fiats) {
+            symbol = fiat.toUpperCase();
+            fiatQuotes.put(symbol, new FiatQuote(symbol));
         }
 
-        // Stocks
-        for (Map.Entry<String, StockQuote> entry : stockQuotes.entrySet()) {
-            symbol = entry.getKey();
-            stockQuote = entry.getValue();
-            name = stockQuote.getName();
-            price = stockQuote.getPrice();
-            sPrice = formatPrice(price);
-            marketCap = stockQuote.getMarketCap();
-            sMarketCap = formatMarketCap(marketCap);
-            percentChange24h = stockQuote.getPercentChange24h();
-
-            // Symbol label
-            text = "<html><b>" + symbol + "</b></html>";
-            JLabel symbolLabel = symbolLabels.get(symbol);
-
-            if (symbolLabel != null) {
-                symbolLabel.setText(text);
-            } else {
-                System.err.println("Could not find symbolLabel for symbol: " + symbol);
-                continue;
-            }
+        // Initial stocks
+        stockQuotes = new TreeMap<String, StockQuote>();
+        ArrayList<String> stocks = config.getStocks();
 
-            // Price label
-            text = "<html><p style=\"text-align: center\"><span style=\"font-size: 1.3em\"><b>" + sPrice + "</b></span><br/><span style=\"font-size: 0.8em\">" + sMarketCap + "</span></p></html>";
-            JLabel priceLabel = priceLabels.get(symbol);
+        for (String stock : stocks) {
+            symbol = stock.toUpperCase();
+            stockQuotes.put(symbol, new StockQuote(symbol));
+        }
 
-            if (priceLabel != null) {
-                priceLabel.setText(text);
-            } else {
-                System.err.println("Could not find priceLabel for symbol: " + symbol);
-                continue;
-            }
+        // Last known quotes until live quotes arrive
+        if (cachedQuotes != null) {
+            applyQuotes(cachedQuotes);
+            cachedQuotesShown = !changedQuotes.isEmpty();
+        }
 
-            if (percentChange24h > 0.5) {
-                priceLabel.setForeground(upColor);
-            } else if (percentChange24h < -0.5) {
-                priceLabel.setForeground(downColor);
-            } else {
-                priceLabel.setForeground(Color.white);
-            }
+        // Tickers
+        for (String cryptoSymbol : cryptoQuotes.keySet()) {
+            tickerStrip.addTicker(cryptoSymbol);
         }
-    }
 
-    public void updateWindow() {
-        int tickerCount = cryptoQuotes.size() + fiatQuotes.size() + stockQuotes.size();
-        window.setSize(150 + (tickerCount * 65), 110);
-        LocalDateTime now = LocalDateTime.now();
-        int m = now.getMinute();
-        String ms;
+        for (String fiatSymbol : fiatQuotes.keySet()) {
+            tickerStrip.addTicker(fiatSymbol);
+        }
 
-        if (m < 10) {
-            ms = "0" + m;
-        } else {
-            ms = "" + m;
+        for (String stockSymbol : stockQuotes.keySet()) {
+            tickerStrip.addTicker(stockSymbol);
         }
 
-        window.setTitle("CryptoFiatStockTicker " + now.getHour() + ":" + ms);
-    }
+        updateTickers();
+        updateWindow();
 
-    public void saveConfig() {
-        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        // Initial and interval update in the background
+        quoteEngine = new QuoteEngine(config, mapper, metrics);
+        metrics.registerMBeans();
+        quoteEngine.setQuoteListener(new SnapshotListener());
+        quoteEngine.start(updateIntervalSeconds);
+        reportStartup("Quote engine started");
+    }
 
+    /**
+     * Reads the config file. Called on a background thread at startup.
+     */
+    private Config readConfig(ObjectMapper mapper) {
         try {
-            FileWriter out = new FileWriter(configFileName);
-            mapper.writeValue(out, config);
+            byte[] configJson = Files.readAllBytes(Paths.get(configFileName));
+            return mapper.readValue(configJson, Config.class);
         } catch (IOException ioe) {
-            System.err.println(ioe);
-            return;
+            throw new UncheckedIOException(ioe);
         }
     }
 
-    private JPanel createTicker(String symbol) {
-        // Ticker subpanel
-        JPanel tickerPanel = new JPanel();
-        tickerPanels.put(symbol, tickerPanel);
-        GridBagLayout layout = new GridBagLayout();
-        tickerPanel.setLayout(layout);
-        tickerPanel.setBackground(Color.black);
-        GridBagConstraints tickerGbc = new GridBagConstraints();
-        tickerGbc.fill = GridBagConstraints.HORIZONTAL;
-        tickerGbc.ipadx = 5;
-        tickerGbc.ipady = 5;
-
-        // Symbol label
-        tickerGbc.gridx = 0;
-        tickerGbc.gridy = 0;
-        String text = "<html><b>" + symbol + "</b></html>";
-        JLabel symbolLabel = new JLabel(text, JLabel.CENTER);
-        symbolLabel.setForeground(Color.white);
-        symbolLabels.put(symbol, symbolLabel);
-        tickerPanel.add(symbolLabel, tickerGbc);
-
-        // Price label
-        tickerGbc.gridy = 1;
-        text = "<html><p style=\"text-align: center\"><span style=\"font-size: 1.3em\"><b>0.000</b></span><br/><span style=\"font-size: 0.8em\">0m</span></p></html>";
-        JLabel priceLabel = new JLabel(text, JLabel.CENTER);
-        priceLabel.setForeground(Color.white);
-        symbolLabel.setLabelFor(priceLabel);
-        priceLabels.put(symbol, priceLabel);
-        tickerPanel.add(priceLabel, tickerGbc);
-
-        return tickerPanel;
-    }
-
-    private int getCryptoErrorCode(Map<String, Object> map) {
-        Map<String, Object> status = (Map<String, Object>)map.get("status");
-        Integer iErrorCode = (Integer)status.get("error_code");
-        int errorCode = iErrorCode.intValue();
-        return errorCode;
+    /**
+     * Decodes a button icon on a background thread. Completes with null if
+     * the image cannot be read.
+     */
+    private CompletableFuture<ImageIcon> loadIcon(final String fileName, final String description) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BufferedImage image = ImageIO.read(getClass().getResource(fileName));
+                return new ImageIcon(image, description);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not read icon " + fileName + ": " + e);
+                return null;
+            }
+        });
     }
 
-    private String getCryptoName(Map<String, Object> map, String symbol) {
-        Map<String, Object> data = (Map<String, Object>)map.get("data");
-        Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
-
-        if (symbolData == null) {
-            return "";
-        }
-
-        String name = (String)symbolData.get("name");
-        return name;
+    /**
+     * Sets the button icon when it is loaded, or the label if it could not be.
+     */
+    private void setIconWhenLoaded(final JButton button, CompletableFuture<ImageIcon> icon, final String label) {
+        icon.thenAccept(loaded -> SwingUtilities.invokeLater(() -> {
+            if (loaded != null) {
+                button.setIcon(loaded);
+            } else {
+                button.setText(label);
+            }
+        }));
     }
 
-    private int getCryptoRank(Map<String, Object> map, String symbol) {
-        Map<String, Object> data = (Map<String, Object>)map.get("data");
-        Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
-        int rank = 0;
-
-        if (symbolData == null) {
-            return rank;
-        }
-
-        Integer iRank = (Integer)symbolData.get("cmc_rank");
-
-        if (iRank != null) {
-            rank = iRank.intValue();
+    /**
+     * Requests a background update of all quotes.
+     * The tickers are updated when the new quotes arrive.
+     */
+    public void updateAll() {
+        if (quoteEngine == null) {
+            return;
         }
 
-        return rank;
+        quoteEngine.update();
     }
 
-    private double getCryptoPrice(Map<String, Object> map, String symbol) {
-        double rounded = 0.0d;
-        Map<String, Object> data = (Map<String, Object>)map.get("data");
-        Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
-
-        if (symbolData == null) {
-            return rounded;
-        }
-
-        Map<String, Object> quote = (Map<String, Object>)symbolData.get("quote");
-
-        if (quote == null) {
-            return rounded;
-        }
-
-        Map<String, Object> usd = (Map<String, Object>)quote.get("USD");
-
-        if (usd == null) {
-            return rounded;
+    /**
+     * Reads the quotes saved by the last run, marked stale. Called on a
+     * background thread at startup. Returns null if there is no cache.
+     */
+    private QuoteSnapshot readQuoteCache(ObjectMapper mapper, Config config) {
+        if (empty(config.getQuoteCacheFile())) {
+            return null;
         }
 
-        Double dPrice = Double.valueOf("" + (usd.get("price")).toString());
-        double price = dPrice.doubleValue();
-
-        if (price >= 100.0) {
-            rounded = Math.round(price);
-        } else if (price >= 1.0) {
-            rounded = Math.round(price * 100.0) / 100.0;
-        } else {
-            rounded = Math.round(price * 1000.0) / 1000.0;
+        try {
+            return new QuoteCache(mapper, Paths.get(config.getQuoteCacheFile())).load();
+        } catch (IOException ioe) {
+            System.err.println("Could not load quote cache: " + ioe);
+            return null;
         }
-
-        return rounded;
     }
 
     /**
-     * Returns market cap in millions with 2 decimal places.
+     * Copies the snapshot quotes that changed for the symbols still shown
+     * and updates their tickers. Must be called on the Event Dispatch Thread.
      */
-    private double getCryptoMarketCap(Map<String, Object> map, String symbol) {
-        double roundedM = 0.0d;
-        Map<String, Object> data = (Map<String, Object>)map.get("data");
-
-        if (data == null) {
-            return roundedM;
-        }
-
-        Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
+    public void applySnapshot(QuoteSnapshot snapshot) {
+        applyQuotes(snapshot);
 
-        if (symbolData == null) {
-            return roundedM;
+        if (!liveQuotesShown && !changedQuotes.isEmpty()) {
+            liveQuotesShown = true;
+            reportStartup("First live quotes" + (cachedQuotesShown ? " replacing cached quotes" : ""));
         }
 
-        Map<String, Object> quote = (Map<String, Object>)symbolData.get("quote");
-
-        if (quote == null) {
-            return roundedM;
-        }
+        updateTickers();
+        updateWindow();
+    }
 
-        Map<String, Object> usd = (Map<String, Object>)quote.get("USD");
+    private void applyQuotes(QuoteSnapshot snapshot) {
+        for (Map.Entry<String, CryptoQuote> entry : snapshot.getCryptoQuotes().entrySet()) {
+            CryptoQuote quote = cryptoQuotes.get(entry.getKey());
 
-        if (usd == null) {
-            return roundedM;
+            if (quote != null && changed(quote, entry.getValue())) {
+                cryptoQuotes.put(entry.getKey(), entry.getValue());
+                changedQuotes.add(entry.getValue());
+            }
         }
 
-        Object oMarketCap = usd.get("market_cap");
+        for (Map.Entry<String, FiatQuote> entry : snapshot.getFiatQuotes().entrySet()) {
+            FiatQuote quote = fiatQuotes.get(entry.getKey());
 
-        if (oMarketCap == null) {
-            return roundedM;
+            if (quote != null && changed(quote, entry.getValue())) {
+                fiatQuotes.put(entry.getKey(), entry.getValue());
+                changedQuotes.add(entry.getValue());
+            }
         }
 
-        Double dMarketCap = Double.valueOf("" + oMarketCap.toString());
+        for (Map.Entry<String, StockQuote> entry : snapshot.getStockQuotes().entrySet()) {
+            StockQuote quote = stockQuotes.get(entry.getKey());
 
-        if (dMarketCap == null) {
-            return roundedM;
+            if (quote != null && changed(quote, entry.getValue())) {
+                stockQuotes.put(entry.getKey(), entry.getValue());
+                changedQuotes.add(entry.getValue());
+            }
         }
-
-        double marketCap = dMarketCap.doubleValue();
-        roundedM = Math.round(marketCap / 10000.0) / 100.0;
-        return roundedM;
     }
 
-    private double getCryptoPercentChange24h(Map<String, Object> map, String symbol) {
-        double percentChange24h = 0.0d;
-        Map<String, Object> data = (Map<String, Object>)map.get("data");
-        Map<String, Object> symbolData = (Map<String, Object>)data.get(symbol);
-
-        if (symbolData == null) {
-            return percentChange24h;
-        }
-
-        Map<String, Object> quote = (Map<String, Object>)symbolData.get("quote");
-        Map<String, Object> usd = (Map<String, Object>)quote.get("USD");
-        Object oPercentChange24h = usd.get("percent_change_24h");
-
-        if (oPercentChange24h == null) {
-            return percentChange24h;
+    /**
+     * A stale quote is only replaced by a quote that was fetched.
+     */
+    private static boolean changed(Quote shown, Quote update) {
+        if (shown.isStale() && update.getVersion() == 0) {
+            return false;
         }
 
-        Double dPercentChange24h = Double.valueOf("" + oPercentChange24h.toString());
-
-        if (dPercentChange24h == null) {
-            return percentChange24h;
-        }
+        return shown.isStale() != update.isStale() || shown.getVersion() != update.getVersion();
+    }
 
-        // cmc 5% = 5.0
-        percentChange24h = dPercentChange24h.doubleValue();
-        return percentChange24h;
+    /**
+     * Prints the time since the app and the JVM started.
+     */
+    private void reportStartup(String event) {
+        long appMillis = (System.nanoTime() - startNanos) / 1000000;
+        long jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.err.println(event + " after " + appMillis + " ms (" + jvmMillis + " ms since JVM start)");
     }
 
-    private double getFiatPrice(Map<String, Object> map, String quoteName) {
-        Double dPrice = Double.valueOf("" + (map.get(quoteName)).toString());
-        double price = dPrice.doubleValue();
-        double rounded = 0.0;
+    /**
+     * Passes the changed quotes to the ticker strip and repaints the changed
+     * cells in one request. Unchanged tickers are not visited.
+     */
+    public void updateTickers() {
+        TickerRenderEvent event = new TickerRenderEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int changedCount = changedQuotes.size();
 
-        if (price >= 100.0) {
-            rounded = Math.round(price);
-        } else if (price >= 1.0) {
-            rounded = Math.round(price * 100.0) / 100.0;
-        } else {
-            rounded = Math.round(price * 1000.0) / 1000.0;
+        for (Quote quote : changedQuotes) {
+            tickerStrip.setQuote(quote.getSymbol(), quote);
         }
 
-        return rounded;
+        changedQuotes.clear();
+        tickerStrip.repaintChanged();
+        updateTickersLatency.recordSince(start);
+        event.commit("updateTickers", tickerStrip.getTickerCount(), changedCount);
     }
 
-    private String getStockName(Map<String, Object> map) {
-        String name = (String)map.get("companyName");
-        return name;
-    }
+    public void updateWindow() {
+        TickerRenderEvent event = new TickerRenderEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int tickerCount = tickerStrip.getTickerCount();
+
+        // Only relayout when tickers were added or removed
+        if (tickerCount != windowTickerCount) {
+            windowTickerCount = tickerCount;
+
+            // Keep the window on the screen and scroll the tickers beyond it
+            int width = 150 + (tickerCount * TickerStrip.cellWidth);
+            int height = 110;
+            int maxWidth = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds().width;
+
+            if (width > maxWidth) {
+                width = maxWidth;
+                height += tickerScrollPane.getHorizontalScrollBar().getPreferredSize().height;
+            }
 
-    private double getStockPrice(Map<String, Object> map) {
-        Object oPrice = map.get("latestPrice");
-        double dPrice = 0.0;
-        double rounded = 0.0;
-
-        if (oPrice instanceof Integer) {
-            Integer iiPrice = (Integer)oPrice;
-            int iPrice = iiPrice.intValue();
-            dPrice = (double)iPrice;
-        } else if (oPrice instanceof Double) {
-            Double ddPrice = (Double)oPrice;
-            dPrice = ddPrice.doubleValue();
-        } else {
-            System.err.println("Unknown type for stock price");
+            window.setSize(width, height);
         }
 
-        if (dPrice >= 100.0) {
-            rounded = Math.round(dPrice);
-        } else if (dPrice >= 1.0) {
-            rounded = Math.round(dPrice * 100.0) / 100.0;
+        LocalDateTime now = LocalDateTime.now();
+        int m = now.getMinute();
+        String ms;
+
+        if (m < 10) {
+            ms = "0" + m;
         } else {
-            rounded = Math.round(dPrice * 1000.0) / 1000.0;
+            ms = "" + m;
         }
 
-        return rounded;
-    }
-
-    private double getStockMarketCap(Map<String, Object> map) {
-        Object oMarketCap = map.get("marketCap");
-        double roundedM = 0.0;
+        String title = "CryptoFiatStockTicker " + now.getHour() + ":" + ms;
 
-        if (oMarketCap == null) {
-            return roundedM;
+        if (!title.equals(window.getTitle())) {
+            window.setTitle(title);
         }
 
-        if (oMarketCap instanceof Long) {
-            Long llMarketCap = (Long)oMarketCap;
-            long lMarketCap = llMarketCap.longValue();
-            roundedM = Math.round(lMarketCap / 1000000.0);
-        } else if (oMarketCap instanceof Integer) {
-            Integer iiMarketCap = (Integer)oMarketCap;
-            int iMarketCap = iiMarketCap.intValue();
-            roundedM = Math.round(iMarketCap / 1000000.0);
-        } else {
-            System.err.println("Unknown type for stock marketCap");
-            roundedM = 0.0;
-        }
-
-        return roundedM;
+        updateWindowLatency.recordSince(start);
+        event.commit("updateWindow", tickerCount, 0);
     }
 
-    private double getStockPercentChange24h(Map<String, Object> map) {
-        // iex 5% = 0.05
-        Object cp = map.get("changePercent");
-        double percentChange24h = 0.0;
-        if (cp instanceof Double) {
-            Double dPercentChange24h = (Double)map.get("changePercent");
-            percentChange24h = dPercentChange24h.doubleValue() * 100.0;
-        } else if (cp instanceof Integer) {
-            Integer iPercentChange24h = (Integer)map.get("changePercent");
-            percentChange24h = (double)iPercentChange24h.intValue() * 100.0;
+    public void saveConfig() {
+        if (config == null) {
+            return;
         }
 
-        return percentChange24h;
+        // The mapper is shared with the fetch thread so it is not reconfigured
+        try {
+            FileWriter out = new FileWriter(configFileName);
+            mapper.writerWithDefaultPrettyPrinter().writeValue(out, config);
+        } catch (IOException ioe) {
+            System.err.println(ioe);
+            return;
+        }
     }
 
-    private String formatPrice(double price) {
+    /**
+     * Reference formatting with String.format. The tickers use
+     * QuoteFormatter, which produces the same text without allocating.
+     */
+    public static String formatPrice(double price) {
         String sPrice;
 
         if (price >= 100.0) {
@@ -1010,7 +638,7 @@ public class App {
         return sPrice;
     }
 
-    private String formatMarketCap(double marketCap) {
+    public static String formatMarketCap(double marketCap) {
         String sMarketCap;
         double bMarketCap;
 
@@ -1050,22 +678,27 @@ public class App {
             return;
         }
 
+        if (quoteEngine == null) {
+            System.err.println("Quotes are not started yet, cannot add symbol: " + symbol);
+            return;
+        }
+
         if (isStock) {
             stockQuotes.put(symbol, new StockQuote(symbol));
             config.addStock(symbol);
+            quoteEngine.addStock(symbol);
         } else if (isFiat) {
             fiatQuotes.put(symbol, new FiatQuote(symbol));
             config.addFiat(symbol);
+            quoteEngine.addFiat(symbol);
         } else if (isCrypto) {
             cryptoQuotes.put(symbol, new CryptoQuote(symbol));
             config.addCrypto(symbol);
+            quoteEngine.addCrypto(symbol);
         }
 
-        JPanel tickerPanel = createTicker(symbol);
-        mainGbc.gridx = gridx;
-        mainPanel.add(tickerPanel, mainGbc);
-        gridx++;
-        updateAll();
+        tickerStrip.addTicker(symbol);
+        updateWindow();
     }
 
     public void removeSymbol(String symbol) {
@@ -1076,10 +709,16 @@ public class App {
             return;
         }
 
+        if (quoteEngine == null) {
+            System.err.println("Quotes are not started yet, cannot remove symbol: " + symbol);
+            return;
+        }
+
         if (isStock) {
             if (stockQuotes.containsKey(symbol)) {
                 stockQuotes.remove(symbol);
                 config.removeStock(symbol);
+                quoteEngine.removeStock(symbol);
             } else {
                 System.err.println("Cannot remove stock symbol: " + symbol);
                 return;
@@ -1088,6 +727,7 @@ public class App {
             if (fiatQuotes.containsKey(symbol)) {
                 fiatQuotes.remove(symbol);
                 config.removeFiat(symbol);
+                quoteEngine.removeFiat(symbol);
             } else {
                 System.err.println("Cannot remove fiat symbol: " + symbol);
                 return;
@@ -1096,32 +736,15 @@ public class App {
             if (cryptoQuotes.containsKey(symbol)) {
                 cryptoQuotes.remove(symbol);
                 config.removeCrypto(symbol);
+                quoteEngine.removeCrypto(symbol);
             } else {
                 System.err.println("Cannot remove crypto symbol: " + symbol);
                 return;
             }
         }
 
-        JPanel tickerPanel = tickerPanels.get(symbol);
-
-        if (tickerPanel != null) {
-            tickerPanels.remove(symbol);
-            mainPanel.remove(tickerPanel);
-        }
-
-        JLabel symbolLabel = symbolLabels.get(symbol);
-
-        if (symbolLabel != null) {
-            symbolLabels.remove(symbol);
-        }
-
-        JLabel priceLabel = priceLabels.get(symbol);
-
-        if (priceLabel != null) {
-            priceLabels.remove(symbol);
-        }
-
-        updateAll();
+        tickerStrip.removeTicker(symbol);
+        updateWindow();
     }
 
     private class UpdateListener implements ActionListener {
@@ -1130,6 +753,16 @@ public class App {
         }
     }
 
+    private class SnapshotListener implements QuoteEngine.QuoteListener {
+        public void quotesUpdated(final QuoteSnapshot snapshot) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    applySnapshot(snapshot);
+                }
+            });
+        }
+    }
+
     private class ButtonListener implements ActionListener {
         public void actionPerformed(ActionEvent e) {
             String button = e.getActionCommand();
@@ -1157,6 +790,11 @@ public class App {
         public void actionPerformed(ActionEvent e) {
             String symbol = getSymbol();
 
+            if (quoteEngine == null) {
+                System.err.println("Quotes are not started yet, ignoring symbol: " + symbol);
+                return;
+            }
+
             if (isStock) {
                 if (stockQuotes.containsKey(symbol)) {
                     // Remove stock
@@ -1208,100 +846,6 @@ public class App {
         }
     }
 
-    private class CryptoQuote {
-        protected String symbol;
-        protected String name;
-        private int rank;
-        private double price;
-        private double marketCap;
-        private double percentChange24h;
-
-        public CryptoQuote() {
-        }
-
-        public CryptoQuote(String symbol) {
-            this.symbol = symbol;
-        }
-
-        public String getSymbol() { return symbol; }
-        public void setSymbol(String x) { symbol = x; }
-
-        public String getName() { return name; }
-        public void setName(String x) { name = x; }
-
-        public int getRank() { return rank; }
-        public void setRank(int x) { rank = x; }
-
-        public double getPrice() { return price; }
-        public void setPrice(double x) { price = x; }
-
-        public double getMarketCap() { return marketCap; }
-        public void setMarketCap(double x) { marketCap = x; }
-
-        public double getPercentChange24h() { return percentChange24h; }
-        public void setPercentChange24h(double x) { percentChange24h = x; }
-    }
-
-    private class FiatQuote {
-        private String symbol;
-        private String name;
-        private double price;
-        private double marketCap;
-        private double percentChange24h;
-
-        public FiatQuote() {
-        }
-
-        public FiatQuote(String symbol) {
-            this.symbol = symbol;
-        }
-
-        public String getSymbol() { return symbol; }
-        public void setSymbol(String x) { symbol = x; }
-
-        public String getName() { return name; }
-        public void setName(String x) { name = x; }
-
-        public double getPrice() { return price; }
-        public void setPrice(double x) { price = x; }
-
-        public double getMarketCap() { return marketCap; }
-        public void setMarketCap(double x) { marketCap = x; }
-
-        public double getPercentChange24h() { return percentChange24h; }
-        public void setPercentChange24h(double x) { percentChange24h = x; }
-    }
-
-    private class StockQuote {
-        private String symbol;
-        private String name;
-        private double price;
-        private double marketCap;
-        private double percentChange24h;
-
-        public StockQuote() {
-        }
-
-        public StockQuote(String symbol) {
-            this.symbol = symbol;
-        }
-
-        public String getSymbol() { return symbol; }
-        public void setSymbol(String x) { symbol = x; }
-
-        public String getName() { return name; }
-        public void setName(String x) { name = x; }
-
-        public double getPrice() { return price; }
-        public void setPrice(double x) { price = x; }
-
-        public double getMarketCap() { return marketCap; }
-        public void setMarketCap(double x) { marketCap = x; }
-
-        public double getPercentChange24h() { return percentChange24h; }
-        public void setPercentChange24h(double x) { percentChange24h = x; }
-    }
-
 /*
 
 // This example uses the Apache HTTPComponents library. 
@@ -0,0 +1,121 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Future;
+import com.fasterxml.jackson.core.JsonParser;
+import com.brooksideas.cfsticker.HttpTransport.Response;
+import com.brooksideas.cfsticker.QuoteParser.ParseResult;
+
+/**
+ * Fiat quotes from currencyconverterapi.com
+ */
+public class CcaQuoteProvider implements QuoteProvider {
+    private static final String defaultCcaBaseUrl = "https://free.currconv.com";
+    private static final String ccaConvertPath = "/api/v7/convert?q=";
+    private static final String ccaTailUrl = "&compact=ultra&apiKey=";
+    // The free currconv plan allows 2 pairs per convert request
+    private static final int defaultCcaMaxPairsPerRequest = 2;
+
+    private ProviderContext context;
+    private String ccaConvertUrl;
+    private String ccaApiKey;
+
+    public String getName() {
+        return "cca";
+    }
+
+    public void init(ProviderContext context) {
+        this.context = context;
+        ccaConvertUrl = ProviderContext.baseUrl(context.getConfig().getCcaBaseUrl(), defaultCcaBaseUrl) + ccaConvertPath;
+        ccaApiKey = ProviderContext.apiKey(context.getConfig().getCcaApiKey(), "currconv");
+    }
+
+    @Override
+    public void getFiatQuotes(Map<String, FiatQuote> quotes) {
+        if (ccaApiKey == null) {
+            return;
+        }
+
+        int maxPairs = context.getConfig().getCcaMaxPairsPerRequest();
+
+        if (maxPairs <= 0) {
+            maxPairs = defaultCcaMaxPairsPerRequest;
+        }
+
+        ArrayList<String> pairs = new ArrayList<String>();
+
+        for (String symbol : quotes.keySet()) {
+            pairs.add(symbol + "_USD");
+        }
+
+        int maxLength = ProviderContext.maxUrlLength - (ccaConvertUrl.length() + ccaTailUrl.length() + ccaApiKey.length());
+        ArrayList<String> pairLists = QuoteEngine.joinSymbols(pairs, maxPairs, maxLength);
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (String pairList : pairLists) {
+            futures.add(context.submit(() -> getFiatQuotes(quotes, pairList)));
+        }
+
+        ProviderContext.await(futures);
+    }
+
+    /**
+     * Gets quotes for a comma separated list of symbol_USD pairs with one url.
+     */
+    private void getFiatQuotes(Map<String, FiatQuote> quotes, String pairList) {
+        String url = ccaConvertUrl + pairList + ccaTailUrl + ccaApiKey;
+        ParseResult result = null;
+        ProviderMetrics metrics = context.getMetrics();
+        QuoteRequestEvent requestEvent = new QuoteRequestEvent();
+        requestEvent.begin();
+        long start = metrics.startRequest();
+        int statusCode = -1;
+
+        try (Response response = context.get(url)) {
+            metrics.recordResponse(start);
+            statusCode = response.getStatusCode();
+            requestEvent.end();
+
+            if (!response.isSuccessful()) {
+                metrics.recordHttpStatus(response.getStatusCode());
+                System.err.println("Fiat quote request for " + pairList + " returned HTTP status: " + response.getStatusCode());
+                return;
+            }
+
+            QuoteParseEvent parseEvent = new QuoteParseEvent();
+            parseEvent.begin();
+            long parseStart = System.nanoTime();
+
+            try (JsonParser parser = context.getMapper().getFactory().createParser(response.getBody())) {
+                result = QuoteParser.parseFiatQuotes(parser, quotes);
+            }
+
+            metrics.recordParse(parseStart, response.getBytesReceived());
+            parseEvent.commit(getName(), result.getSymbols().size(), response.getBytesReceived());
+        } catch (IOException ioe) {
+            metrics.recordException(ioe);
+            System.err.println(ioe);
+            return;
+        } finally {
+            requestEvent.commit(getName(), ProviderContext.countSymbols(pairList), statusCode);
+        }
+
+        context.reportAllocations("Fiat", result);
+
+        if (result.getErrorMessage() != null) {
+            metrics.recordErrorCode(result.getErrorCode());
+            System.err.println("Fiat quote request returned error: " + result.getErrorMessage());
+            return;
+        }
+
+        for (String pair : pairList.split(",")) {
+            String symbol = pair.substring(0, pair.length() - 4);
+
+            if (quotes.containsKey(symbol) && !result.getSymbols().contains(symbol)) {
+                System.err.println("Invalid fiat symbol: " + symbol);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.brooksideas.cfsticker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Circuit breaker for the requests to one quote provider.
+ *
+ * The breaker is closed while requests succeed. After failureThreshold
+ * consecutive failures it opens and no requests are allowed for a backoff
+ * delay, which doubles each time the breaker opens again up to a maximum.
+ * The delay is jittered between half and all of its length so instances
+ * sharing a provider do not retry together. When the delay has passed the
+ * breaker is half open and allows a single probe: success closes it and
+ * failure opens it again with the next delay.
+ *
+ * All methods are thread-safe.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private String name;
+    private int failureThreshold;
+    private long baseDelayMillis;
+    private long maxDelayMillis;
+    private State state = State.CLOSED;
+    private int failures;
+    private int opened;
+    private long openUntilNanos;
+
+    public CircuitBreaker(String name, int failureThreshold, long baseDelayMillis, long maxDelayMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public String getName() { return name; }
+
+    public synchronized State getState() { return state; }
+
+    /**
+     * Returns true if a request may be sent now. A half-open breaker allows
+     * only one probe until its outcome is recorded.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            System.err.println("Quote provider " + name + " recovered, resuming requests");
+        }
+
+        state = State.CLOSED;
+        failures = 0;
+        opened = 0;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        long delay = baseDelayMillis << Math.min(opened, 30);
+
+        if (delay <= 0 || delay > maxDelayMillis) {
+            delay = maxDelayMillis;
+        }
+
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        opened++;
+        state = State.OPEN;
+        openUntilNanos = System.nanoTime() + delay * 1000000;
+        System.err.println("Quote provider " + name + " failing, pausing requests for " + (delay + 999) / 1000 + " s");
+    }
+}
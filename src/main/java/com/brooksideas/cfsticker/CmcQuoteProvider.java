@@ -0,0 +1,118 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Future;
+import com.fasterxml.jackson.core.JsonParser;
+import com.brooksideas.cfsticker.HttpTransport.Response;
+import com.brooksideas.cfsticker.QuoteParser.ParseResult;
+
+/**
+ * Crypto quotes from coinmarketcap.com
+ */
+public class CmcQuoteProvider implements QuoteProvider {
+    private static final String defaultCmcBaseUrl = "https://pro-api.coinmarketcap.com";
+    private static final String cmcTickerPath = "/v1/cryptocurrency/quotes/latest?symbol=";
+    private static final String cmcTailUrl = "&convert=USD&aux=cmc_rank,market_cap_by_total_supply&skip_invalid=true";
+    private static final String cmcApiKeyHeader = "X-CMC_PRO_API_KEY";
+    // cmc charges 1 credit per 100 symbols in a quotes request
+    private static final int defaultCmcMaxSymbolsPerRequest = 100;
+
+    private ProviderContext context;
+    private String cmcTickerUrl;
+    private String cmcApiKey;
+
+    public String getName() {
+        return "cmc";
+    }
+
+    public void init(ProviderContext context) {
+        this.context = context;
+        cmcTickerUrl = ProviderContext.baseUrl(context.getConfig().getCmcBaseUrl(), defaultCmcBaseUrl) + cmcTickerPath;
+        cmcApiKey = ProviderContext.apiKey(context.getConfig().getCmcApiKey(), "CMC");
+    }
+
+    @Override
+    public void getCryptoQuotes(Map<String, CryptoQuote> quotes) {
+        if (cmcApiKey == null) {
+            return;
+        }
+
+        int maxSymbols = context.getConfig().getCmcMaxSymbolsPerRequest();
+
+        if (maxSymbols <= 0) {
+            maxSymbols = defaultCmcMaxSymbolsPerRequest;
+        }
+
+        int maxLength = ProviderContext.maxUrlLength - (cmcTickerUrl.length() + cmcTailUrl.length());
+        ArrayList<String> symbolLists = QuoteEngine.joinSymbols(quotes.keySet(), maxSymbols, maxLength);
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (String symbolList : symbolLists) {
+            futures.add(context.submit(() -> getCryptoQuotes(quotes, symbolList)));
+        }
+
+        ProviderContext.await(futures);
+    }
+
+    /**
+     * Gets quotes for a comma separated list of crypto symbols with one url.
+     * Symbols missing from the response data are reported and skipped.
+     */
+    private void getCryptoQuotes(Map<String, CryptoQuote> quotes, String symbolList) {
+        String url = cmcTickerUrl + symbolList + cmcTailUrl;
+        ParseResult result = null;
+        ProviderMetrics metrics = context.getMetrics();
+        QuoteRequestEvent requestEvent = new QuoteRequestEvent();
+        requestEvent.begin();
+        long start = metrics.startRequest();
+        int statusCode = -1;
+
+        // Error responses carry a status.error_code so the body is parsed either way
+        try (Response response = context.get(url, cmcApiKeyHeader, cmcApiKey);
+             JsonParser parser = context.getMapper().getFactory().createParser(response.getBody())) {
+            metrics.recordResponse(start);
+            statusCode = response.getStatusCode();
+            requestEvent.end();
+            QuoteParseEvent parseEvent = new QuoteParseEvent();
+            parseEvent.begin();
+            long parseStart = System.nanoTime();
+
+            try {
+                result = QuoteParser.parseCryptoQuotes(parser, quotes);
+            } catch (IOException ioe) {
+                if (!response.isSuccessful()) {
+                    metrics.recordHttpStatus(response.getStatusCode());
+                    System.err.println("Crypto quote request returned HTTP status: " + response.getStatusCode());
+                    return;
+                }
+
+                throw ioe;
+            }
+
+            metrics.recordParse(parseStart, response.getBytesReceived());
+            parseEvent.commit(getName(), result.getSymbols().size(), response.getBytesReceived());
+        } catch (IOException ioe) {
+            metrics.recordException(ioe);
+            System.err.println(ioe);
+            return;
+        } finally {
+            requestEvent.commit(getName(), ProviderContext.countSymbols(symbolList), statusCode);
+        }
+
+        context.reportAllocations("Crypto", result);
+
+        if (result.getErrorCode() != 0) {
+            metrics.recordErrorCode(result.getErrorCode());
+            System.err.println("Crypto quote request returned error code: " + result.getErrorCode());
+            return;
+        }
+
+        for (String symbol : symbolList.split(",")) {
+            if (quotes.containsKey(symbol) && !result.getSymbols().contains(symbol)) {
+                System.err.println("Invalid crypto symbol: " + symbol);
+            }
+        }
+    }
+}
@@ -10,6 +10,32 @@ public class Config {
     private String ccaApiKey;
     private String cmcApiKey;
     private String iexApiKey;
+    private String cmcBaseUrl;
+    private String ccaBaseUrl;
+    private String iexBaseUrl;
+    private String cryptoProvider;
+    private String fiatProvider;
+    private String stockProvider;
+    private int cmcMaxSymbolsPerRequest;
+    private int ccaMaxPairsPerRequest;
+    private int maxRequestsPerProvider;
+    private boolean reportAllocations;
+    private int connectTimeoutSeconds;
+    private int readTimeoutSeconds;
+    private int historySize;
+    private String quoteLogDirectory;
+    private String quoteCacheFile;
+    private int serverPort;
+    private int quoteLogSegmentRecords;
+    private int quoteLogMaxSegments;
+    private boolean shareQuotes;
+    private String sharedQuoteFile;
+    private int metricsDumpSeconds;
+    private int circuitBreakerFailures;
+    private int circuitBreakerBackoffSeconds;
+    private int circuitBreakerMaxBackoffSeconds;
+    private int refreshDeadlineSeconds;
+    private int hedgePercentile;
     private ArrayList<String> cryptos;
     private ArrayList<String> fiats;
     private ArrayList<String> stocks;
@@ -26,6 +52,84 @@ public class Config {
     public String getIexApiKey() { return iexApiKey; }
     public void setIexApiKey(String x) { iexApiKey = x; }
 
+    public String getCmcBaseUrl() { return cmcBaseUrl; }
+    public void setCmcBaseUrl(String x) { cmcBaseUrl = x; }
+
+    public String getCcaBaseUrl() { return ccaBaseUrl; }
+    public void setCcaBaseUrl(String x) { ccaBaseUrl = x; }
+
+    public String getIexBaseUrl() { return iexBaseUrl; }
+    public void setIexBaseUrl(String x) { iexBaseUrl = x; }
+
+    public String getCryptoProvider() { return cryptoProvider; }
+    public void setCryptoProvider(String x) { cryptoProvider = x; }
+
+    public String getFiatProvider() { return fiatProvider; }
+    public void setFiatProvider(String x) { fiatProvider = x; }
+
+    public String getStockProvider() { return stockProvider; }
+    public void setStockProvider(String x) { stockProvider = x; }
+
+    public int getCmcMaxSymbolsPerRequest() { return cmcMaxSymbolsPerRequest; }
+    public void setCmcMaxSymbolsPerRequest(int x) { cmcMaxSymbolsPerRequest = x; }
+
+    public int getCcaMaxPairsPerRequest() { return ccaMaxPairsPerRequest; }
+    public void setCcaMaxPairsPerRequest(int x) { ccaMaxPairsPerRequest = x; }
+
+    public int getMaxRequestsPerProvider() { return maxRequestsPerProvider; }
+    public void setMaxRequestsPerProvider(int x) { maxRequestsPerProvider = x; }
+
+    public boolean isReportAllocations() { return reportAllocations; }
+    public void setReportAllocations(boolean x) { reportAllocations = x; }
+
+    public int getConnectTimeoutSeconds() { return connectTimeoutSeconds; }
+    public void setConnectTimeoutSeconds(int x) { connectTimeoutSeconds = x; }
+
+    public int getReadTimeoutSeconds() { return readTimeoutSeconds; }
+    public void setReadTimeoutSeconds(int x) { readTimeoutSeconds = x; }
+
+    public int getHistorySize() { return historySize; }
+    public void setHistorySize(int x) { historySize = x; }
+
+    public String getQuoteLogDirectory() { return quoteLogDirectory; }
+    public void setQuoteLogDirectory(String x) { quoteLogDirectory = x; }
+
+    public String getQuoteCacheFile() { return quoteCacheFile; }
+    public void setQuoteCacheFile(String x) { quoteCacheFile = x; }
+
+    public int getServerPort() { return serverPort; }
+    public void setServerPort(int x) { serverPort = x; }
+
+    public int getQuoteLogSegmentRecords() { return quoteLogSegmentRecords; }
+    public void setQuoteLogSegmentRecords(int x) { quoteLogSegmentRecords = x; }
+
+    public int getQuoteLogMaxSegments() { return quoteLogMaxSegments; }
+    public void setQuoteLogMaxSegments(int x) { quoteLogMaxSegments = x; }
+
+    public boolean isShareQuotes() { return shareQuotes; }
+    public void setShareQuotes(boolean x) { shareQuotes = x; }
+
+    public String getSharedQuoteFile() { return sharedQuoteFile; }
+    public void setSharedQuoteFile(String x) { sharedQuoteFile = x; }
+
+    public int getMetricsDumpSeconds() { return metricsDumpSeconds; }
+    public void setMetricsDumpSeconds(int x) { metricsDumpSeconds = x; }
+
+    public int getCircuitBreakerFailures() { return circuitBreakerFailures; }
+    public void setCircuitBreakerFailures(int x) { circuitBreakerFailures = x; }
+
+    public int getCircuitBreakerBackoffSeconds() { return circuitBreakerBackoffSeconds; }
+    public void setCircuitBreakerBackoffSeconds(int x) { circuitBreakerBackoffSeconds = x; }
+
+    public int getCircuitBreakerMaxBackoffSeconds() { return circuitBreakerMaxBackoffSeconds; }
+    public void setCircuitBreakerMaxBackoffSeconds(int x) { circuitBreakerMaxBackoffSeconds = x; }
+
+    public int getRefreshDeadlineSeconds() { return refreshDeadlineSeconds; }
+    public void setRefreshDeadlineSeconds(int x) { refreshDeadlineSeconds = x; }
+
+    public int getHedgePercentile() { return hedgePercentile; }
+    public void setHedgePercentile(int x) { hedgePercentile = x; }
+
     public ArrayList<String> getCryptos() {
         if (cryptos == null) {
             cryptos = new ArrayList<String>();
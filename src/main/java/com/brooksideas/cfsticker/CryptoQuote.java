@@ -0,0 +1,23 @@
+package com.brooksideas.cfsticker;
+
+/**
+ * Latest cryptocurrency quote
+ */
+public class CryptoQuote extends Quote {
+    private int rank;
+
+    public CryptoQuote() {
+    }
+
+    public CryptoQuote(String symbol) {
+        super(symbol);
+    }
+
+    public CryptoQuote(CryptoQuote x) {
+        super(x);
+        rank = x.rank;
+    }
+
+    public int getRank() { return rank; }
+    public void setRank(int x) { if (x != rank) { rank = x; version++; } }
+}
@@ -0,0 +1,54 @@
+package com.brooksideas.cfsticker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Future of a quote fetch or provider request that can also be waited on
+ * until its thread has left it. A cancelled task is done right away, but
+ * its thread may still be parsing a response until it notices the
+ * interrupt.
+ */
+public class FetchTask extends FutureTask<Void> {
+    private CountDownLatch exited = new CountDownLatch(1);
+
+    public FetchTask(Runnable task) {
+        super(task, null);
+    }
+
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } finally {
+            exit();
+            exited.countDown();
+        }
+    }
+
+    /**
+     * Called on the task's thread when it leaves the task, after the task
+     * ran or if it was cancelled before it started.
+     */
+    protected void exit() {
+    }
+
+    public boolean hasExited() {
+        return exited.getCount() == 0;
+    }
+
+    /**
+     * Waits until the task has run or its thread has left it, or until the
+     * deadline, a System.nanoTime value. Returns false if it is still
+     * running.
+     */
+    public boolean awaitExit(long deadlineNanos) {
+        try {
+            return exited.await(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
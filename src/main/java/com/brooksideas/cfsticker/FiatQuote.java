@@ -0,0 +1,17 @@
+package com.brooksideas.cfsticker;
+
+/**
+ * Latest fiat/forex quote
+ */
+public class FiatQuote extends Quote {
+    public FiatQuote() {
+    }
+
+    public FiatQuote(String symbol) {
+        super(symbol);
+    }
+
+    public FiatQuote(FiatQuote x) {
+        super(x);
+    }
+}
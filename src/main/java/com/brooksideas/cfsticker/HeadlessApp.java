@@ -0,0 +1,120 @@
+package com.brooksideas.cfsticker;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * CryptoFiatStockTicker without a window, for servers with no display.
+ *
+ * Usage: HeadlessApp [--once] [--config cfsticker.json] [--output file]
+ *
+ * Runs the same quote engine and config as the desktop app and writes the
+ * changed quotes of each refresh as JSON lines to stdout or appends them to
+ * the output file. With --once a single refresh is written and the app
+ * exits. No AWT or Swing classes are loaded.
+ */
+public class HeadlessApp {
+    private static final String defaultConfigFileName = "cfsticker.json";
+    private static final int minUpdateIntervalSeconds = 60;
+    private static final int outputBufferSize = 65536;
+
+    public static void main(String[] args) {
+        String configFileName = defaultConfigFileName;
+        String outputFileName = null;
+        boolean once = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--once".equals(args[i])) {
+                once = true;
+            } else if ("--config".equals(args[i]) && i + 1 < args.length) {
+                configFileName = args[++i];
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputFileName = args[++i];
+            } else {
+                System.err.println("Usage: HeadlessApp [--once] [--config cfsticker.json] [--output file]");
+                System.exit(2);
+            }
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Config config = null;
+
+        try {
+            byte[] configJson = Files.readAllBytes(Paths.get(configFileName));
+            config = mapper.readValue(configJson, Config.class);
+        } catch (IOException ioe) {
+            System.err.println(ioe);
+            System.exit(1);
+        }
+
+        OutputStream out;
+
+        try {
+            if (outputFileName == null) {
+                out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), outputBufferSize);
+            } else {
+                out = new BufferedOutputStream(new FileOutputStream(outputFileName, true), outputBufferSize);
+            }
+        } catch (IOException ioe) {
+            System.err.println(ioe);
+            System.exit(1);
+            return;
+        }
+
+        HeadlessApp app = new HeadlessApp();
+        app.run(config, mapper, out, once);
+    }
+
+    /**
+     * Writes quotes until the JVM is stopped, or after one refresh if once
+     * is set.
+     */
+    public void run(Config config, ObjectMapper mapper, OutputStream out, boolean once) {
+        final QuoteLineWriter writer;
+
+        try {
+            writer = new QuoteLineWriter(mapper.getFactory(), out);
+        } catch (IOException ioe) {
+            System.err.println(ioe);
+            return;
+        }
+
+        final QuoteEngine quoteEngine = new QuoteEngine(config, mapper);
+        quoteEngine.getMetrics().registerMBeans();
+        quoteEngine.setQuoteListener(writer);
+
+        Thread shutdown = new Thread(() -> {
+            quoteEngine.stop();
+
+            try {
+                writer.close();
+            } catch (IOException ioe) {
+                System.err.println(ioe);
+            }
+        }, "cfsticker-shutdown");
+
+        if (once) {
+            // Nothing else uses the engine, so refresh on this thread
+            quoteEngine.updateAll();
+            shutdown.run();
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(shutdown);
+        quoteEngine.start(Math.max(config.getUpdateIntervalSeconds(), minUpdateIntervalSeconds));
+
+        // The engine threads are daemons, so wait here until the JVM is stopped
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
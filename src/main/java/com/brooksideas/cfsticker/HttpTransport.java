@@ -0,0 +1,269 @@
+package com.brooksideas.cfsticker;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP transport for all quote providers.
+ *
+ * One client is used for every request so connections are pooled and kept
+ * alive between refreshes. HTTP/2 is used where the server supports it and
+ * gzip responses are requested and decoded.
+ *
+ * The body is read asynchronously into memory and the whole response is
+ * bounded by the read timeout, so a server that sends its headers and then
+ * stalls cannot hold a fetch thread. Quote responses are small, and the
+ * parsers still stream over the received bytes.
+ *
+ * A request can be hedged: if it has not been answered after a delay the
+ * same request is sent again and the first response is used.
+ */
+public class HttpTransport {
+    private static final int defaultConnectTimeoutSeconds = 10;
+    private static final int defaultReadTimeoutSeconds = 30;
+
+    private HttpClient client;
+    private Duration readTimeout;
+
+    public HttpTransport(Config config) {
+        int connectTimeoutSeconds = config.getConnectTimeoutSeconds();
+        int readTimeoutSeconds = config.getReadTimeoutSeconds();
+
+        if (connectTimeoutSeconds <= 0) {
+            connectTimeoutSeconds = defaultConnectTimeoutSeconds;
+        }
+
+        if (readTimeoutSeconds <= 0) {
+            readTimeoutSeconds = defaultReadTimeoutSeconds;
+        }
+
+        readTimeout = Duration.ofSeconds(readTimeoutSeconds);
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    /**
+     * Sends a GET request with the given header name and value pairs.
+     * The response is returned whatever its status so error bodies can be
+     * read.
+     */
+    public Response get(String url, String... headers) throws IOException {
+        return get(url, 0, headers);
+    }
+
+    /**
+     * Sends a GET request and, if hedgeMillis is positive and no response
+     * arrived within it, sends the request again. The first response is
+     * returned and the other one is dropped.
+     */
+    public Response get(String url, long hedgeMillis, String... headers) throws IOException {
+        HttpRequest.Builder builder;
+
+        try {
+            builder = HttpRequest.newBuilder(URI.create(url));
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Invalid url: " + url, iae);
+        }
+
+        builder.timeout(readTimeout)
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip");
+
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+
+        HttpRequest request = builder.GET().build();
+        long deadline = System.nanoTime() + readTimeout.toNanos();
+        CompletableFuture<HttpResponse<byte[]>> first = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        boolean hedged = false;
+
+        if (hedgeMillis > 0 && hedgeMillis < readTimeout.toMillis()) {
+            try {
+                first.get(hedgeMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                hedged = true;
+                first = firstOf(first, client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()));
+            } catch (ExecutionException ee) {
+                throw failure(ee);
+            } catch (InterruptedException ie) {
+                first.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Request interrupted: " + url);
+            }
+        }
+
+        HttpResponse<byte[]> response = await(first, deadline, url);
+        CountingInputStream received = new CountingInputStream(new ByteArrayInputStream(response.body()));
+        InputStream body = received;
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            body = new GZIPInputStream(body);
+        }
+
+        return new Response(response.statusCode(), body, received, hedged);
+    }
+
+    /**
+     * Waits for the response until the deadline, a System.nanoTime value,
+     * and cancels the request if it passes or the thread is interrupted.
+     */
+    private HttpResponse<byte[]> await(CompletableFuture<HttpResponse<byte[]>> response, long deadlineNanos, String url) throws IOException {
+        try {
+            return response.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException te) {
+            response.cancel(true);
+            throw new HttpTimeoutException("Request timed out after " + readTimeout.toSeconds() + " s: " + url);
+        } catch (ExecutionException ee) {
+            throw failure(ee);
+        } catch (InterruptedException ie) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted: " + url);
+        }
+    }
+
+    /**
+     * Completes with the first successful response, or the last failure if
+     * both requests fail. Cancelling it cancels both requests.
+     */
+    private static CompletableFuture<HttpResponse<byte[]>> firstOf(CompletableFuture<HttpResponse<byte[]>> a, CompletableFuture<HttpResponse<byte[]>> b) {
+        CompletableFuture<HttpResponse<byte[]>> winner = new CompletableFuture<HttpResponse<byte[]>>();
+        AtomicInteger failures = new AtomicInteger();
+
+        for (CompletableFuture<HttpResponse<byte[]>> request : List.of(a, b)) {
+            request.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    winner.complete(response);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(failure);
+                }
+            });
+        }
+
+        winner.whenComplete((response, failure) -> {
+            if (winner.isCancelled()) {
+                a.cancel(true);
+                b.cancel(true);
+            }
+        });
+
+        return winner;
+    }
+
+    private static IOException failure(ExecutionException ee) {
+        Throwable cause = ee.getCause();
+
+        if (cause instanceof IOException) {
+            return (IOException)cause;
+        }
+
+        return new IOException(cause);
+    }
+
+    /**
+     * Status and decoded body of a response
+     */
+    public static class Response implements Closeable {
+        private int statusCode;
+        private InputStream body;
+        private CountingInputStream received;
+        private boolean hedged;
+
+        public Response(int statusCode, InputStream body) {
+            this(statusCode, body, null, false);
+        }
+
+        private Response(int statusCode, InputStream body, CountingInputStream received, boolean hedged) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.received = received;
+            this.hedged = hedged;
+        }
+
+        public int getStatusCode() { return statusCode; }
+
+        public InputStream getBody() { return body; }
+
+        /**
+         * Returns the body bytes read so far before decoding.
+         */
+        public long getBytesReceived() {
+            return received == null ? 0 : received.count;
+        }
+
+        /**
+         * Returns true if the request was sent a second time.
+         */
+        public boolean isHedged() { return hedged; }
+
+        public boolean isSuccessful() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Counts the bytes read from the response, skips included.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+
+            if (b >= 0) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+
+            if (n > 0) {
+                count += n;
+            }
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
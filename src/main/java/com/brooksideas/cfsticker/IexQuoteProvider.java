@@ -0,0 +1,102 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.Future;
+import com.fasterxml.jackson.core.JsonParser;
+import com.brooksideas.cfsticker.HttpTransport.Response;
+import com.brooksideas.cfsticker.QuoteParser.ParseResult;
+
+/**
+ * Stock quotes from iexcloud.io
+ */
+public class IexQuoteProvider implements QuoteProvider {
+    private static final String defaultIexBaseUrl = "https://cloud.iexapis.com";
+    private static final String iexBatchPath = "/v1/stock/market/batch?symbols=";
+    private static final String iexBatchTailUrl = "&types=quote&token=";
+    // iex market batch requests take up to 100 symbols
+    private static final int iexMaxSymbolsPerRequest = 100;
+
+    private ProviderContext context;
+    private String iexBatchUrl;
+    private String iexApiKey;
+
+    public String getName() {
+        return "iex";
+    }
+
+    public void init(ProviderContext context) {
+        this.context = context;
+        iexBatchUrl = ProviderContext.baseUrl(context.getConfig().getIexBaseUrl(), defaultIexBaseUrl) + iexBatchPath;
+        iexApiKey = ProviderContext.apiKey(context.getConfig().getIexApiKey(), "IEX");
+    }
+
+    @Override
+    public void getStockQuotes(Map<String, StockQuote> quotes) {
+        if (iexApiKey == null) {
+            return;
+        }
+
+        int maxLength = ProviderContext.maxUrlLength - (iexBatchUrl.length() + iexBatchTailUrl.length() + iexApiKey.length());
+        ArrayList<String> symbolLists = QuoteEngine.joinSymbols(quotes.keySet(), iexMaxSymbolsPerRequest, maxLength);
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (String symbolList : symbolLists) {
+            futures.add(context.submit(() -> getStockQuotes(quotes, symbolList)));
+        }
+
+        ProviderContext.await(futures);
+    }
+
+    /**
+     * Gets quotes for a comma separated list of stock symbols with one
+     * market batch url. Unknown symbols are left out of the response.
+     */
+    private void getStockQuotes(Map<String, StockQuote> quotes, String symbolList) {
+        String url = iexBatchUrl + symbolList + iexBatchTailUrl + iexApiKey;
+        ParseResult result = null;
+        ProviderMetrics metrics = context.getMetrics();
+        QuoteRequestEvent requestEvent = new QuoteRequestEvent();
+        requestEvent.begin();
+        long start = metrics.startRequest();
+        int statusCode = -1;
+
+        try (Response response = context.get(url)) {
+            metrics.recordResponse(start);
+            statusCode = response.getStatusCode();
+            requestEvent.end();
+
+            if (!response.isSuccessful()) {
+                metrics.recordHttpStatus(response.getStatusCode());
+                System.err.println("Stock quote request for " + symbolList + " returned HTTP status: " + response.getStatusCode());
+                return;
+            }
+
+            QuoteParseEvent parseEvent = new QuoteParseEvent();
+            parseEvent.begin();
+            long parseStart = System.nanoTime();
+
+            try (JsonParser parser = context.getMapper().getFactory().createParser(response.getBody())) {
+                result = QuoteParser.parseStockQuotes(parser, quotes);
+            }
+
+            metrics.recordParse(parseStart, response.getBytesReceived());
+            parseEvent.commit(getName(), result.getSymbols().size(), response.getBytesReceived());
+        } catch (IOException ioe) {
+            metrics.recordException(ioe);
+            System.err.println(ioe);
+            return;
+        } finally {
+            requestEvent.commit(getName(), ProviderContext.countSymbols(symbolList), statusCode);
+        }
+
+        context.reportAllocations("Stock", result);
+
+        for (String symbol : symbolList.split(",")) {
+            if (quotes.containsKey(symbol) && !result.getSymbols().contains(symbol)) {
+                System.err.println("Invalid stock symbol: " + symbol);
+            }
+        }
+    }
+}
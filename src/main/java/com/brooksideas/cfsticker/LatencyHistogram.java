@@ -0,0 +1,156 @@
+package com.brooksideas.cfsticker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies.
+ *
+ * Latencies are counted in microsecond buckets. Below 16 microseconds each
+ * bucket is one microsecond wide, above that every power of two range is
+ * split into 8 buckets, so a percentile is within 12.5% of the recorded
+ * latency. Recording is a few atomic adds and can be done from any thread.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int subBucketBits = 3;
+    private static final int subBuckets = 1 << subBucketBits;
+    private static final int linearBuckets = subBuckets * 2;
+    private static final int bucketCount = subBuckets * 64;
+
+    private String name;
+    private AtomicLongArray counts = new AtomicLongArray(bucketCount);
+    private LongAdder count = new LongAdder();
+    private LongAdder totalNanos = new LongAdder();
+    private AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Records the time since startNanos, a System.nanoTime value.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts.incrementAndGet(bucket(nanos / 1000));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / (n * 1000000.0);
+    }
+
+    public double getP50Millis() {
+        return getPercentileMillis(0.5);
+    }
+
+    public double getP90Millis() {
+        return getPercentileMillis(0.9);
+    }
+
+    public double getP99Millis() {
+        return getPercentileMillis(0.99);
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given fraction of
+     * the recorded latencies, at most the largest latency, or 0 if none
+     * were recorded.
+     */
+    public double getPercentileMillis(double fraction) {
+        return getPercentileMillis(fraction, this);
+    }
+
+    /**
+     * Returns the percentile of the latencies recorded in all of the
+     * histograms together.
+     */
+    public static double getPercentileMillis(double fraction, LatencyHistogram... histograms) {
+        long[] snapshot = new long[bucketCount];
+        long total = 0;
+        long max = 0;
+
+        for (LatencyHistogram histogram : histograms) {
+            for (int i = 0; i < bucketCount; i++) {
+                long n = histogram.counts.get(i);
+                snapshot[i] += n;
+                total += n;
+            }
+
+            max = Math.max(max, histogram.maxNanos.get());
+        }
+
+        if (total == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1, (long)Math.ceil(fraction * total));
+        long seen = 0;
+
+        for (int i = 0; i < bucketCount; i++) {
+            seen += snapshot[i];
+
+            if (seen >= rank) {
+                return Math.min(upperMicros(i) * 1000.0, max) / 1000000.0;
+            }
+        }
+
+        return max / 1000000.0;
+    }
+
+    /**
+     * Clears the histogram. Latencies recorded while it is cleared may be
+     * partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            counts.set(i, 0);
+        }
+
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    static int bucket(long micros) {
+        if (micros < linearBuckets) {
+            return (int)micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int)(micros >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + sub;
+    }
+
+    static long upperMicros(int bucket) {
+        if (bucket < linearBuckets) {
+            return bucket;
+        }
+
+        int exponent = bucket / subBuckets + subBucketBits - 1;
+        int sub = bucket % subBuckets;
+        long width = 1L << (exponent - subBucketBits);
+        return ((subBuckets + sub) * width) + width - 1;
+    }
+}
@@ -0,0 +1,18 @@
+package com.brooksideas.cfsticker;
+
+/**
+ * JMX view of a latency histogram, in milliseconds.
+ */
+public interface LatencyHistogramMXBean {
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+}
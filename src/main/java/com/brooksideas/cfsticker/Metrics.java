@@ -0,0 +1,120 @@
+package com.brooksideas.cfsticker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Provider and pipeline phase metrics of the ticker.
+ *
+ * Latency histograms are named by phase, for example fetchCrypto or
+ * updateTickers, and each provider has its own request counts and
+ * provider.request and provider.parse latencies. Once registered, every
+ * histogram and provider is a platform MXBean in the
+ * com.brooksideas.cfsticker domain, and dump returns them all as text.
+ */
+public class Metrics {
+    public static final String domain = "com.brooksideas.cfsticker";
+
+    private ConcurrentSkipListMap<String, LatencyHistogram> latencies = new ConcurrentSkipListMap<String, LatencyHistogram>();
+    private ConcurrentSkipListMap<String, ProviderMetrics> providers = new ConcurrentSkipListMap<String, ProviderMetrics>();
+    private volatile MBeanServer server;
+
+    /**
+     * Returns the latency histogram with the name, creating it on first use.
+     */
+    public LatencyHistogram getLatency(String name) {
+        LatencyHistogram latency = latencies.get(name);
+
+        if (latency == null) {
+            LatencyHistogram created = new LatencyHistogram(name);
+            latency = latencies.putIfAbsent(name, created);
+
+            if (latency == null) {
+                latency = created;
+                register("Latency", name, latency);
+            }
+        }
+
+        return latency;
+    }
+
+    /**
+     * Returns the metrics of the provider, creating them on first use.
+     */
+    public ProviderMetrics getProvider(String name) {
+        ProviderMetrics provider = providers.get(name);
+
+        if (provider == null) {
+            ProviderMetrics created = new ProviderMetrics(name, getLatency(name + ".request"), getLatency(name + ".parse"));
+            provider = providers.putIfAbsent(name, created);
+
+            if (provider == null) {
+                provider = created;
+                register("Provider", name, provider);
+            }
+        }
+
+        return provider;
+    }
+
+    /**
+     * Registers all metrics, and any created later, with the platform
+     * MBean server.
+     */
+    public void registerMBeans() {
+        server = ManagementFactory.getPlatformMBeanServer();
+
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            register("Latency", entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, ProviderMetrics> entry : providers.entrySet()) {
+            register("Provider", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void register(String type, String name, Object mbean) {
+        MBeanServer mbeanServer = server;
+
+        if (mbeanServer == null) {
+            return;
+        }
+
+        try {
+            ObjectName objectName = new ObjectName(domain + ":type=" + type + ",name=" + ObjectName.quote(name));
+
+            if (!mbeanServer.isRegistered(objectName)) {
+                mbeanServer.registerMBean(mbean, objectName);
+            }
+        } catch (JMException jme) {
+            System.err.println("Could not register " + type + " metrics " + name + ": " + jme);
+        }
+    }
+
+    /**
+     * Returns all provider counts and latencies, one per line.
+     */
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+
+        for (ProviderMetrics provider : providers.values()) {
+            text.append(String.format("%-16s %8d requests %6d hedged %6d errors %12d bytes %s%n",
+                provider.getName(), provider.getRequestCount(), provider.getHedgeCount(), provider.getErrorCount(),
+                provider.getBytesReceived(), provider.getErrorCounts()));
+        }
+
+        for (LatencyHistogram latency : latencies.values()) {
+            if (latency.getCount() > 0) {
+                text.append(String.format("%-16s %8d times  mean %9.3f  p50 %9.3f  p90 %9.3f  p99 %9.3f  max %9.3f ms%n",
+                    latency.getName(), latency.getCount(), latency.getMeanMillis(), latency.getP50Millis(),
+                    latency.getP90Millis(), latency.getP99Millis(), latency.getMaxMillis()));
+            }
+        }
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.brooksideas.cfsticker.HttpTransport.Response;
+import com.brooksideas.cfsticker.QuoteParser.ParseResult;
+
+/**
+ * Shared services for a quote provider.
+ *
+ * Each provider gets its own context, so the permits that limit concurrent
+ * requests are per provider while the transport and executor are shared.
+ */
+public class ProviderContext {
+    public static final int maxUrlLength = 2000;
+    // Requests needed before their latency percentile is trusted for hedging
+    private static final int minHedgeSamples = 20;
+    // Longest wait for cancelled tasks to leave a response they are parsing
+    private static final long maxExitWaitMillis = 5000;
+
+    private Config config;
+    private ObjectMapper mapper;
+    private HttpTransport transport;
+    private ExecutorService executor;
+    private Semaphore permits;
+    private ProviderMetrics metrics;
+
+    public ProviderContext(Config config, ObjectMapper mapper, HttpTransport transport, ExecutorService executor, int maxRequests, ProviderMetrics metrics) {
+        this.config = config;
+        this.mapper = mapper;
+        this.transport = transport;
+        this.executor = executor;
+        permits = new Semaphore(maxRequests);
+        this.metrics = metrics;
+    }
+
+    public Config getConfig() { return config; }
+
+    public ObjectMapper getMapper() { return mapper; }
+
+    public HttpTransport getTransport() { return transport; }
+
+    public ProviderMetrics getMetrics() { return metrics; }
+
+    /**
+     * Sends a GET request with the transport. When hedgePercentile is set
+     * and the provider has enough recent requests, a request that has not
+     * been answered within that percentile of their latency is sent again.
+     */
+    public Response get(String url, String... headers) throws IOException {
+        long hedgeMillis = 0;
+        int hedgePercentile = config.getHedgePercentile();
+
+        if (hedgePercentile > 0 && hedgePercentile < 100 && metrics.getRecentRequestCount() >= minHedgeSamples) {
+            hedgeMillis = Math.max(1, (long)Math.ceil(metrics.getRecentPercentileMillis(hedgePercentile / 100.0)));
+        }
+
+        Response response = transport.get(url, hedgeMillis, headers);
+
+        if (response.isHedged()) {
+            metrics.recordHedge();
+        }
+
+        return response;
+    }
+
+    /**
+     * Runs a provider request on the fetch executor once one of the
+     * provider's permits is free. The permit is taken on the caller's
+     * thread, so queued requests do not hold executor threads, and is
+     * returned when the request's thread leaves it. A cancelled request
+     * keeps its permit until then, so the provider never has more than
+     * maxRequests requests running.
+     * The returned future is a FetchTask, or a cancelled future if the
+     * caller was interrupted while waiting for a permit.
+     */
+    public Future<?> submit(Runnable request) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Void> cancelled = new CompletableFuture<Void>();
+            cancelled.cancel(false);
+            return cancelled;
+        }
+
+        FetchTask task = new FetchTask(request) {
+            @Override
+            protected void exit() {
+                permits.release();
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ree) {
+            task.cancel(false);
+            permits.release();
+            throw ree;
+        }
+
+        return task;
+    }
+
+    /**
+     * Waits for all requests to finish.
+     * A failed request is reported and does not stop the others. If the
+     * waiting thread is interrupted the requests are cancelled, and it
+     * returns once they have exited.
+     */
+    public static void await(ArrayList<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ee) {
+                System.err.println(ee.getCause());
+            } catch (CancellationException ce) {
+                // Cancelled before it ran
+            } catch (InterruptedException ie) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for all requests to finish until the deadline, a System.nanoTime
+     * value, and cancels the unfinished ones when it passes. Returns once
+     * the cancelled ones have exited, or false if the deadline passed.
+     */
+    public static boolean await(ArrayList<Future<?>> futures, long deadlineNanos) {
+        for (Future<?> future : futures) {
+            try {
+                future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException ee) {
+                System.err.println(ee.getCause());
+            } catch (CancellationException ce) {
+                // Cancelled before it ran
+            } catch (TimeoutException te) {
+                cancel(futures);
+                return false;
+            } catch (InterruptedException ie) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void cancel(ArrayList<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxExitWaitMillis);
+
+        for (Future<?> future : futures) {
+            if (future instanceof FetchTask && !((FetchTask)future).awaitExit(deadline)) {
+                System.err.println("Cancelled quote request still running after " + maxExitWaitMillis + " ms");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the configured api key, or null after reporting once that
+     * the provider's quotes are not fetched without one.
+     */
+    public static String apiKey(String configured, String provider) {
+        if (configured == null || configured.trim().isEmpty()) {
+            System.err.println("No " + provider + " API key configured, its quotes are not fetched");
+            return null;
+        }
+
+        return configured.trim();
+    }
+
+    /**
+     * Returns the configured base url without a trailing slash, or the
+     * default when none is configured.
+     */
+    public static String baseUrl(String configured, String defaultUrl) {
+        if (configured == null || configured.trim().isEmpty()) {
+            return defaultUrl;
+        }
+
+        configured = configured.trim();
+
+        if (configured.endsWith("/")) {
+            configured = configured.substring(0, configured.length() - 1);
+        }
+
+        return configured;
+    }
+
+    /**
+     * Returns the number of symbols in a comma separated list.
+     */
+    public static int countSymbols(String symbolList) {
+        int count = 1;
+
+        for (int i = 0; i < symbolList.length(); i++) {
+            if (symbolList.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public void reportAllocations(String type, ParseResult result) {
+        if (config.isReportAllocations()) {
+            System.err.println(type + " quote response: " + result.getSymbols().size() + " quotes, " + result.getAllocatedBytes() + " bytes allocated");
+        }
+    }
+}
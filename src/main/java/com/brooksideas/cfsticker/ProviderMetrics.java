@@ -0,0 +1,148 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts and latencies of one quote provider.
+ *
+ * A provider calls startRequest before sending a request, recordResponse
+ * when the response status arrives and recordParse when the body is
+ * parsed, and records each failure once.
+ *
+ * Besides the latency of all requests, the latency of recent requests is
+ * kept for hedging in two histograms of recentRequests requests each. When
+ * the newer one is full the older one is cleared and takes the next
+ * requests, so the recent latency covers the last recentRequests to twice
+ * that many requests and follows a provider that gets slower or faster.
+ */
+public class ProviderMetrics implements ProviderMetricsMXBean {
+    public static final int recentRequests = 100;
+
+    private String name;
+    private LongAdder requests = new LongAdder();
+    private LongAdder errors = new LongAdder();
+    private LongAdder bytesReceived = new LongAdder();
+    private LongAdder hedges = new LongAdder();
+    private ConcurrentHashMap<String, LongAdder> errorCounts = new ConcurrentHashMap<String, LongAdder>();
+    private LatencyHistogram requestLatency;
+    private LatencyHistogram parseLatency;
+    private LatencyHistogram[] recentLatency;
+    private volatile int recent;
+
+    public ProviderMetrics(String name, LatencyHistogram requestLatency, LatencyHistogram parseLatency) {
+        this.name = name;
+        this.requestLatency = requestLatency;
+        this.parseLatency = parseLatency;
+        recentLatency = new LatencyHistogram[] { new LatencyHistogram(name + ".recent"), new LatencyHistogram(name + ".recent") };
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Time from sending a request until its response status arrives.
+     */
+    public LatencyHistogram getRequestLatency() { return requestLatency; }
+
+    /**
+     * Time to read and parse a response body.
+     */
+    public LatencyHistogram getParseLatency() { return parseLatency; }
+
+    /**
+     * Counts a request and returns its start time for recordResponse.
+     */
+    public long startRequest() {
+        requests.increment();
+        return System.nanoTime();
+    }
+
+    public void recordResponse(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        requestLatency.record(nanos);
+        LatencyHistogram newer = recentLatency[recent];
+        newer.record(nanos);
+
+        if (newer.getCount() >= recentRequests) {
+            rotate(newer);
+        }
+    }
+
+    private synchronized void rotate(LatencyHistogram full) {
+        if (recentLatency[recent] == full) {
+            recentLatency[1 - recent].reset();
+            recent = 1 - recent;
+        }
+    }
+
+    /**
+     * Returns the number of recent requests with a response.
+     */
+    public long getRecentRequestCount() {
+        return recentLatency[0].getCount() + recentLatency[1].getCount();
+    }
+
+    /**
+     * Returns the latency percentile of recent requests.
+     */
+    public double getRecentPercentileMillis(double fraction) {
+        return LatencyHistogram.getPercentileMillis(fraction, recentLatency);
+    }
+
+    public void recordParse(long startNanos, long bytes) {
+        parseLatency.recordSince(startNanos);
+        bytesReceived.add(bytes);
+    }
+
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * Counts a status.error_code or other error code in a response body.
+     */
+    public void recordErrorCode(int errorCode) {
+        recordError(Integer.toString(errorCode));
+    }
+
+    public void recordHttpStatus(int statusCode) {
+        recordError("HTTP " + statusCode);
+    }
+
+    public void recordException(Exception e) {
+        recordError(e.getClass().getSimpleName());
+    }
+
+    private void recordError(String key) {
+        errors.increment();
+        errorCounts.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public Map<String, Long> getErrorCounts() {
+        TreeMap<String, Long> counts = new TreeMap<String, Long>();
+
+        for (Map.Entry<String, LongAdder> entry : errorCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return counts;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+}
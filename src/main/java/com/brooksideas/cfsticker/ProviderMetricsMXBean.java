@@ -0,0 +1,26 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Map;
+
+/**
+ * JMX view of the request counts of a quote provider.
+ */
+public interface ProviderMetricsMXBean {
+    long getRequestCount();
+
+    long getErrorCount();
+
+    /**
+     * Returns the error count by provider error code, HTTP status or
+     * exception.
+     */
+    Map<String, Long> getErrorCounts();
+
+    long getBytesReceived();
+
+    /**
+     * Returns the number of requests sent a second time because the first
+     * was slow.
+     */
+    long getHedgeCount();
+}
@@ -0,0 +1,58 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Objects;
+
+/**
+ * Latest quote for a symbol
+ *
+ * The version is incremented by every setter that changes a value, so
+ * readers holding an older copy can tell whether anything shown changed.
+ * A stale quote holds the last known values, for example loaded from disk
+ * at startup, rather than a fresh response.
+ */
+public class Quote {
+    protected String symbol;
+    protected String name;
+    protected double price;
+    protected double marketCap;
+    protected double percentChange24h;
+    protected boolean stale;
+    protected long version;
+
+    public Quote() {
+    }
+
+    public Quote(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public Quote(Quote x) {
+        symbol = x.symbol;
+        name = x.name;
+        price = x.price;
+        marketCap = x.marketCap;
+        percentChange24h = x.percentChange24h;
+        stale = x.stale;
+        version = x.version;
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String x) { symbol = x; }
+
+    public String getName() { return name; }
+    public void setName(String x) { if (!Objects.equals(x, name)) { name = x; version++; } }
+
+    public double getPrice() { return price; }
+    public void setPrice(double x) { if (Double.compare(x, price) != 0) { price = x; version++; } }
+
+    public double getMarketCap() { return marketCap; }
+    public void setMarketCap(double x) { if (Double.compare(x, marketCap) != 0) { marketCap = x; version++; } }
+
+    public double getPercentChange24h() { return percentChange24h; }
+    public void setPercentChange24h(double x) { if (Double.compare(x, percentChange24h) != 0) { percentChange24h = x; version++; } }
+
+    public boolean isStale() { return stale; }
+    public void setStale(boolean x) { if (x != stale) { stale = x; version++; } }
+
+    public long getVersion() { return version; }
+}
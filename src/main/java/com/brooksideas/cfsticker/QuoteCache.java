@@ -0,0 +1,170 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Last known quotes saved to a JSON file after each refresh, so the next
+ * launch can show them right away while live quotes are fetched.
+ *
+ * Only fetched quotes are saved. A symbol that has not been fetched since
+ * launch keeps the quote already in the file, so a launch without network
+ * access does not replace the last known quotes with empty ones.
+ *
+ * The file is written to a temporary file and moved into place, so a crash
+ * while saving leaves the previous file intact.
+ */
+public class QuoteCache {
+    private ObjectMapper mapper;
+    private Path path;
+    private Path tempPath;
+    private Contents saved;
+
+    public QuoteCache(ObjectMapper mapper, Path path) {
+        this.mapper = mapper;
+        this.path = path;
+        tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Saves the fetched quotes of the snapshot, and the saved quotes of its
+     * other symbols. Nothing is written if no quote was fetched.
+     */
+    public void save(QuoteSnapshot snapshot) throws IOException {
+        if (saved == null) {
+            saved = read();
+
+            if (saved == null) {
+                saved = new Contents();
+            }
+        }
+
+        Contents contents = new Contents();
+        contents.setTimestamp(snapshot.getTimestamp());
+        int fetched = merge(snapshot.getCryptoQuotes(), saved.getCryptoQuotes(), contents.getCryptoQuotes());
+        fetched += merge(snapshot.getFiatQuotes(), saved.getFiatQuotes(), contents.getFiatQuotes());
+        fetched += merge(snapshot.getStockQuotes(), saved.getStockQuotes(), contents.getStockQuotes());
+
+        if (fetched == 0) {
+            return;
+        }
+
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            mapper.writeValue(out, contents);
+        }
+
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        saved = contents;
+    }
+
+    /**
+     * Puts each fetched quote, or else the saved quote of its symbol, into
+     * the merged map and returns the number of fetched quotes.
+     */
+    private static <T extends Quote> int merge(Map<String, T> quotes, Map<String, T> saved, Map<String, T> merged) {
+        int fetched = 0;
+
+        for (Map.Entry<String, T> entry : quotes.entrySet()) {
+            if (entry.getValue().getVersion() > 0) {
+                merged.put(entry.getKey(), entry.getValue());
+                fetched++;
+            } else if (saved.containsKey(entry.getKey())) {
+                merged.put(entry.getKey(), saved.get(entry.getKey()));
+            }
+        }
+
+        return fetched;
+    }
+
+    /**
+     * Loads the saved quotes marked stale, or returns null if nothing was
+     * saved yet.
+     */
+    public QuoteSnapshot load() throws IOException {
+        Contents contents = read();
+
+        if (contents == null) {
+            return null;
+        }
+
+        for (Quote quote : contents.getCryptoQuotes().values()) {
+            quote.setStale(true);
+        }
+
+        for (Quote quote : contents.getFiatQuotes().values()) {
+            quote.setStale(true);
+        }
+
+        for (Quote quote : contents.getStockQuotes().values()) {
+            quote.setStale(true);
+        }
+
+        return new QuoteSnapshot(contents.getTimestamp(), contents.getCryptoQuotes(), contents.getFiatQuotes(), contents.getStockQuotes());
+    }
+
+    private Contents read() throws IOException {
+        try {
+            byte[] json = Files.readAllBytes(path);
+            return mapper.readerFor(Contents.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(json);
+        } catch (NoSuchFileException nsfe) {
+            return null;
+        }
+    }
+
+    /**
+     * File contents
+     */
+    public static class Contents {
+        private long timestamp;
+        private TreeMap<String, CryptoQuote> cryptoQuotes;
+        private TreeMap<String, FiatQuote> fiatQuotes;
+        private TreeMap<String, StockQuote> stockQuotes;
+
+        public long getTimestamp() { return timestamp; }
+        public void setTimestamp(long x) { timestamp = x; }
+
+        public TreeMap<String, CryptoQuote> getCryptoQuotes() {
+            if (cryptoQuotes == null) {
+                cryptoQuotes = new TreeMap<String, CryptoQuote>();
+            }
+
+            return cryptoQuotes;
+        }
+
+        public void setCryptoQuotes(TreeMap<String, CryptoQuote> x) { cryptoQuotes = x; }
+
+        public TreeMap<String, FiatQuote> getFiatQuotes() {
+            if (fiatQuotes == null) {
+                fiatQuotes = new TreeMap<String, FiatQuote>();
+            }
+
+            return fiatQuotes;
+        }
+
+        public void setFiatQuotes(TreeMap<String, FiatQuote> x) { fiatQuotes = x; }
+
+        public TreeMap<String, StockQuote> getStockQuotes() {
+            if (stockQuotes == null) {
+                stockQuotes = new TreeMap<String, StockQuote>();
+            }
+
+            return stockQuotes;
+        }
+
+        public void setStockQuotes(TreeMap<String, StockQuote> x) { stockQuotes = x; }
+    }
+}
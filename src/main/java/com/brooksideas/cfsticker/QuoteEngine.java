@@ -0,0 +1,848 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Background quote fetch engine.
+ *
+ * All quote state is confined to a single scheduler thread. Symbol changes
+ * and update requests are queued to that thread, so blocking provider calls
+ * never run on the caller's thread. At the end of each refresh a snapshot
+ * of all quotes is passed to the quote listener. Providers update copies of
+ * the quotes, which are applied on the scheduler thread once their fetch
+ * has finished or, after the refresh deadline, exited.
+ *
+ * When quotes are shared, only the instance leading the shared quote table
+ * fetches from the providers. The other instances read its quotes from the
+ * table and fetch only symbols it does not have. If the table has not been
+ * written for two update intervals, its quotes are marked stale and the
+ * other instances fetch all symbols themselves until it is written again.
+ *
+ * Each provider has a circuit breaker. A fetch fails if it was cancelled or
+ * more than half of its quotes were not fetched. While a provider keeps
+ * failing its breaker is open, no requests are sent to it and its last good
+ * quotes are marked stale. Quotes missing from a fetch are marked stale on
+ * their own.
+ */
+public class QuoteEngine {
+    private static final String defaultCryptoProvider = "cmc";
+    private static final String defaultFiatProvider = "cca";
+    private static final String defaultStockProvider = "iex";
+    private static final int defaultMaxRequestsPerProvider = 4;
+    private static final int defaultHistorySize = 256;
+    private static final int defaultQuoteLogSegmentRecords = 65536;
+    private static final int defaultQuoteLogMaxSegments = 16;
+    private static final int sharedPollSeconds = 2;
+    private static final int defaultCircuitBreakerFailures = 2;
+    private static final int defaultCircuitBreakerBackoffSeconds = 60;
+    private static final int defaultCircuitBreakerMaxBackoffSeconds = 3600;
+    private static final int defaultRefreshDeadlineSeconds = 60;
+    private static final int defaultUpdateIntervalSeconds = 60;
+    // Largest fraction of quotes a fetch can miss without failing
+    private static final double maxUnfetchedFraction = 0.5;
+
+    private ObjectMapper mapper;
+    private HttpTransport transport;
+    private Config config;
+    private TreeMap<String, CryptoQuote> cryptoQuotes;
+    private TreeMap<String, FiatQuote> fiatQuotes;
+    private TreeMap<String, StockQuote> stockQuotes;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService fetchExecutor;
+    private QuoteProvider cryptoProvider;
+    private QuoteProvider fiatProvider;
+    private QuoteProvider stockProvider;
+    private QuoteListener quoteListener;
+    private QuoteHistory cryptoHistory;
+    private QuoteHistory fiatHistory;
+    private QuoteHistory stockHistory;
+    private QuoteCache quoteCache;
+    private QuoteLog quoteLog;
+    private QuoteServer quoteServer;
+    private ExecutorService logExecutor;
+    private SharedQuoteTable sharedTable;
+    private long sharedSequence = -1;
+    private Metrics metrics;
+    private LatencyHistogram cryptoFetchLatency;
+    private LatencyHistogram fiatFetchLatency;
+    private LatencyHistogram stockFetchLatency;
+    private LatencyHistogram refreshLatency;
+    private HashMap<String, CircuitBreaker> circuitBreakers = new HashMap<String, CircuitBreaker>();
+    private long refreshDeadlineNanos;
+    private int updateIntervalSeconds;
+
+    /**
+     * Receives a snapshot of all quotes after each refresh.
+     * Called on the engine's scheduler thread.
+     */
+    public interface QuoteListener {
+        void quotesUpdated(QuoteSnapshot snapshot);
+    }
+
+    public QuoteEngine(Config config, ObjectMapper mapper) {
+        this(config, mapper, new Metrics());
+    }
+
+    public QuoteEngine(Config config, ObjectMapper mapper, Metrics metrics) {
+        String symbol;
+
+        this.config = config;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        cryptoFetchLatency = metrics.getLatency("fetchCrypto");
+        fiatFetchLatency = metrics.getLatency("fetchFiat");
+        stockFetchLatency = metrics.getLatency("fetchStock");
+        refreshLatency = metrics.getLatency("refresh");
+        transport = new HttpTransport(config);
+
+        cryptoQuotes = new TreeMap<String, CryptoQuote>();
+
+        for (String crypto : config.getCryptos()) {
+            symbol = crypto.toUpperCase();
+            cryptoQuotes.put(symbol, new CryptoQuote(symbol));
+        }
+
+        fiatQuotes = new TreeMap<String, FiatQuote>();
+
+        for (String fiat : config.getFiats()) {
+            symbol = fiat.toUpperCase();
+            fiatQuotes.put(symbol, new FiatQuote(symbol));
+        }
+
+        stockQuotes = new TreeMap<String, StockQuote>();
+
+        for (String stock : config.getStocks()) {
+            symbol = stock.toUpperCase();
+            stockQuotes.put(symbol, new StockQuote(symbol));
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cfsticker-fetch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // Requests run concurrently up to a limit per provider
+        int maxRequests = config.getMaxRequestsPerProvider();
+
+        if (maxRequests <= 0) {
+            maxRequests = defaultMaxRequestsPerProvider;
+        }
+
+        fetchExecutor = newFetchExecutor();
+
+        // Recent samples of each quote
+        int historySize = config.getHistorySize();
+
+        if (historySize <= 0) {
+            historySize = defaultHistorySize;
+        }
+
+        cryptoHistory = new QuoteHistory(historySize);
+        fiatHistory = new QuoteHistory(historySize);
+        stockHistory = new QuoteHistory(historySize);
+
+        // Last known quotes for the next launch
+        if (!empty(config.getQuoteCacheFile())) {
+            quoteCache = new QuoteCache(mapper, Paths.get(config.getQuoteCacheFile()));
+        }
+
+        // Local server sharing the quotes
+        if (config.getServerPort() > 0) {
+            try {
+                quoteServer = new QuoteServer(mapper.getFactory(), config.getServerPort(), newFetchExecutor());
+                quoteServer.start();
+            } catch (IOException ioe) {
+                System.err.println("Could not start quote server: " + ioe);
+            }
+        }
+
+        // Quotes shared with other instances
+        if (config.isShareQuotes()) {
+            openSharedTable();
+        }
+
+        // Durable log of quote changes, written on its own thread
+        if (!empty(config.getQuoteLogDirectory())) {
+            openQuoteLog();
+        }
+
+        // Providers chosen by name, each with its own request limit
+        HashMap<String, QuoteProvider> providers = new HashMap<String, QuoteProvider>();
+
+        for (QuoteProvider provider : ServiceLoader.load(QuoteProvider.class)) {
+            providers.put(provider.getName(), provider);
+        }
+
+        cryptoProvider = getProvider(providers, config.getCryptoProvider(), defaultCryptoProvider);
+        fiatProvider = getProvider(providers, config.getFiatProvider(), defaultFiatProvider);
+        stockProvider = getProvider(providers, config.getStockProvider(), defaultStockProvider);
+        HashSet<QuoteProvider> used = new HashSet<QuoteProvider>(Arrays.asList(cryptoProvider, fiatProvider, stockProvider));
+
+        // Longest wait for the providers in one refresh
+        int deadlineSeconds = config.getRefreshDeadlineSeconds();
+
+        if (deadlineSeconds <= 0) {
+            deadlineSeconds = defaultRefreshDeadlineSeconds;
+        }
+
+        refreshDeadlineNanos = TimeUnit.SECONDS.toNanos(deadlineSeconds);
+
+        // Until started, the configured interval tells how old shared quotes may be
+        updateIntervalSeconds = config.getUpdateIntervalSeconds();
+
+        if (updateIntervalSeconds <= 0) {
+            updateIntervalSeconds = defaultUpdateIntervalSeconds;
+        }
+
+        // Pause requests to a failing provider
+        int failures = config.getCircuitBreakerFailures();
+        int backoffSeconds = config.getCircuitBreakerBackoffSeconds();
+        int maxBackoffSeconds = config.getCircuitBreakerMaxBackoffSeconds();
+
+        if (failures <= 0) {
+            failures = defaultCircuitBreakerFailures;
+        }
+
+        if (backoffSeconds <= 0) {
+            backoffSeconds = defaultCircuitBreakerBackoffSeconds;
+        }
+
+        if (maxBackoffSeconds <= 0) {
+            maxBackoffSeconds = defaultCircuitBreakerMaxBackoffSeconds;
+        }
+
+        for (QuoteProvider provider : used) {
+            provider.init(new ProviderContext(config, mapper, transport, fetchExecutor, maxRequests, metrics.getProvider(provider.getName())));
+            circuitBreakers.put(provider.getName(), new CircuitBreaker(provider.getName(), failures, backoffSeconds * 1000L, maxBackoffSeconds * 1000L));
+        }
+    }
+
+    private static QuoteProvider getProvider(HashMap<String, QuoteProvider> providers, String name, String defaultName) {
+        if (empty(name)) {
+            name = defaultName;
+        }
+
+        QuoteProvider provider = providers.get(name);
+
+        if (provider == null) {
+            System.err.println("Unknown quote provider: " + name + ", using " + defaultName);
+            provider = providers.get(defaultName);
+        }
+
+        return provider;
+    }
+
+    public void setQuoteListener(QuoteListener x) { quoteListener = x; }
+
+    /**
+     * Provider and refresh metrics, shared with the caller's own phases.
+     */
+    public Metrics getMetrics() { return metrics; }
+
+    public CircuitBreaker getCircuitBreaker(String providerName) {
+        return circuitBreakers.get(providerName);
+    }
+
+    /**
+     * Starts updating all quotes now and then every interval.
+     */
+    public void start(int updateIntervalSeconds) {
+        this.updateIntervalSeconds = updateIntervalSeconds;
+        scheduler.scheduleWithFixedDelay(new UpdateTask(), 0, updateIntervalSeconds, TimeUnit.SECONDS);
+
+        if (config.getMetricsDumpSeconds() > 0) {
+            scheduler.scheduleWithFixedDelay(() -> System.err.print(metrics.dump()),
+                config.getMetricsDumpSeconds(), config.getMetricsDumpSeconds(), TimeUnit.SECONDS);
+        }
+
+        if (sharedTable != null) {
+            scheduler.scheduleWithFixedDelay(new SharedPollTask(), sharedPollSeconds, sharedPollSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        fetchExecutor.shutdownNow();
+
+        if (quoteServer != null) {
+            quoteServer.close();
+        }
+
+        if (sharedTable != null) {
+            // Lets another instance lead
+            try {
+                sharedTable.close();
+            } catch (IOException ioe) {
+                System.err.println(ioe);
+            }
+        }
+
+        if (logExecutor != null) {
+            logExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        quoteLog.close();
+                    } catch (IOException ioe) {
+                        System.err.println(ioe);
+                    }
+                }
+            });
+            logExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Queues an update of all quotes.
+     */
+    public void update() {
+        scheduler.execute(new UpdateTask());
+    }
+
+    /**
+     * Queues adding a crypto symbol followed by an update.
+     */
+    public void addCrypto(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                cryptoQuotes.put(symbol, new CryptoQuote(symbol));
+            }
+        });
+        update();
+    }
+
+    public void removeCrypto(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                cryptoQuotes.remove(symbol);
+                cryptoHistory.remove(symbol);
+            }
+        });
+        update();
+    }
+
+    public void addFiat(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                fiatQuotes.put(symbol, new FiatQuote(symbol));
+            }
+        });
+        update();
+    }
+
+    public void removeFiat(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                fiatQuotes.remove(symbol);
+                fiatHistory.remove(symbol);
+            }
+        });
+        update();
+    }
+
+    public void addStock(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                stockQuotes.put(symbol, new StockQuote(symbol));
+            }
+        });
+        update();
+    }
+
+    public void removeStock(final String symbol) {
+        scheduler.execute(new Runnable() {
+            public void run() {
+                stockQuotes.remove(symbol);
+                stockHistory.remove(symbol);
+            }
+        });
+        update();
+    }
+
+    /**
+     * Fetches all quotes and publishes a snapshot.
+     * The three providers are queried at the same time, so a refresh takes
+     * about as long as the slowest provider. Requests still running at the
+     * refresh deadline are cancelled and the quotes fetched so far are
+     * published.
+     * Must only be called on the scheduler thread.
+     */
+    public void updateAll() {
+        long start = System.nanoTime();
+
+        if (sharedTable != null && !sharedTable.tryLead()) {
+            readSharedTable(true);
+        } else {
+            ArrayList<Fetch<?>> fetches = new ArrayList<Fetch<?>>();
+            fetches.add(cryptoFetch(cryptoQuotes));
+            fetches.add(fiatFetch(fiatQuotes));
+            fetches.add(stockFetch(stockQuotes));
+            runFetches(fetches, start);
+        }
+
+        publish();
+        refreshLatency.recordSince(start);
+    }
+
+    /**
+     * True if this engine fetches the quotes itself, false if it follows
+     * another instance through the shared quote table.
+     */
+    public boolean isLeader() {
+        return sharedTable == null || sharedTable.isLeader();
+    }
+
+    private void publish() {
+        long timestamp = System.currentTimeMillis();
+        cryptoHistory.recordAll(cryptoQuotes, timestamp);
+        fiatHistory.recordAll(fiatQuotes, timestamp);
+        stockHistory.recordAll(stockQuotes, timestamp);
+
+        final QuoteSnapshot snapshot = new QuoteSnapshot(timestamp, cryptoQuotes, fiatQuotes, stockQuotes);
+
+        if (sharedTable != null && sharedTable.isLeader()) {
+            sharedTable.write(snapshot);
+        }
+
+        if (logExecutor != null) {
+            logExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        quoteLog.appendChanged(snapshot);
+                    } catch (IOException ioe) {
+                        System.err.println("Could not append to quote log: " + ioe);
+                    }
+                }
+            });
+        }
+
+        if (quoteListener != null) {
+            quoteListener.quotesUpdated(snapshot);
+        }
+
+        if (quoteServer != null) {
+            quoteServer.quotesUpdated(snapshot);
+        }
+
+        if (quoteCache != null) {
+            try {
+                quoteCache.save(snapshot);
+            } catch (IOException ioe) {
+                System.err.println("Could not save quote cache: " + ioe);
+            }
+        }
+    }
+
+    /**
+     * Recent crypto quote samples, recorded at the end of each refresh.
+     * Can be read from any thread.
+     */
+    public QuoteHistory getCryptoHistory() {
+        return cryptoHistory;
+    }
+
+    public QuoteHistory getFiatHistory() {
+        return fiatHistory;
+    }
+
+    public QuoteHistory getStockHistory() {
+        return stockHistory;
+    }
+
+    /**
+     * Fetches the crypto quotes on the calling thread.
+     * Must only be called on the scheduler thread.
+     */
+    public void getCryptoQuotes() {
+        cryptoFetch(cryptoQuotes).runNow();
+    }
+
+    public void getFiatQuotes() {
+        fiatFetch(fiatQuotes).runNow();
+    }
+
+    public void getStockQuotes() {
+        stockFetch(stockQuotes).runNow();
+    }
+
+    private Fetch<CryptoQuote> cryptoFetch(Map<String, CryptoQuote> quotes) {
+        return new Fetch<CryptoQuote>(cryptoProvider, "crypto", quotes, CryptoQuote::new, cryptoProvider::getCryptoQuotes, cryptoFetchLatency);
+    }
+
+    private Fetch<FiatQuote> fiatFetch(Map<String, FiatQuote> quotes) {
+        return new Fetch<FiatQuote>(fiatProvider, "fiat", quotes, FiatQuote::new, fiatProvider::getFiatQuotes, fiatFetchLatency);
+    }
+
+    private Fetch<StockQuote> stockFetch(Map<String, StockQuote> quotes) {
+        return new Fetch<StockQuote>(stockProvider, "stock", quotes, StockQuote::new, stockProvider::getStockQuotes, stockFetchLatency);
+    }
+
+    /**
+     * Runs the fetches at the same time until the deadline and applies
+     * them. Fetches cancelled at the deadline are applied once they have
+     * exited, so their cancelled requests no longer write to the quotes.
+     */
+    private void runFetches(ArrayList<Fetch<?>> fetches, long startNanos) {
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (Fetch<?> fetch : fetches) {
+            futures.add(fetch.submit());
+        }
+
+        if (!ProviderContext.await(futures, startNanos + refreshDeadlineNanos)) {
+            System.err.println("Quote refresh passed its deadline of " + TimeUnit.NANOSECONDS.toSeconds(refreshDeadlineNanos) + " s, requests cancelled");
+        }
+
+        for (Fetch<?> fetch : fetches) {
+            fetch.apply();
+        }
+    }
+
+    private static void markStale(Map<String, ? extends Quote> quotes) {
+        for (Quote quote : quotes.values()) {
+            if (quote.getVersion() > 0) {
+                quote.setStale(true);
+            }
+        }
+    }
+
+    /**
+     * Copies the quotes of the shared table into this engine's quotes and,
+     * if fetchMissing is true, fetches the symbols the table does not have.
+     * Quotes of a table last written more than two update intervals ago are
+     * copied as stale and count as missing.
+     */
+    private void readSharedTable(boolean fetchMissing) {
+        long sequence = sharedTable.getSequence();
+        QuoteSnapshot shared = sharedTable.read();
+        TreeMap<String, CryptoQuote> missingCryptos = new TreeMap<String, CryptoQuote>();
+        TreeMap<String, FiatQuote> missingFiats = new TreeMap<String, FiatQuote>();
+        TreeMap<String, StockQuote> missingStocks = new TreeMap<String, StockQuote>();
+
+        boolean outdated = false;
+
+        if (shared != null) {
+            sharedSequence = sequence;
+            outdated = System.currentTimeMillis() - shared.getTimestamp() > 2000L * updateIntervalSeconds;
+        }
+
+        copySharedQuotes(shared == null ? null : shared.getCryptoQuotes(), outdated, cryptoQuotes, missingCryptos);
+        copySharedQuotes(shared == null ? null : shared.getFiatQuotes(), outdated, fiatQuotes, missingFiats);
+        copySharedQuotes(shared == null ? null : shared.getStockQuotes(), outdated, stockQuotes, missingStocks);
+
+        if (!fetchMissing) {
+            return;
+        }
+
+        // The missing maps hold this engine's quotes, so fetching updates them
+        ArrayList<Fetch<?>> fetches = new ArrayList<Fetch<?>>();
+
+        if (!missingCryptos.isEmpty()) {
+            fetches.add(cryptoFetch(missingCryptos));
+        }
+
+        if (!missingFiats.isEmpty()) {
+            fetches.add(fiatFetch(missingFiats));
+        }
+
+        if (!missingStocks.isEmpty()) {
+            fetches.add(stockFetch(missingStocks));
+        }
+
+        runFetches(fetches, System.nanoTime());
+    }
+
+    private static <T extends Quote> void copySharedQuotes(Map<String, T> shared, boolean outdated, TreeMap<String, T> quotes, TreeMap<String, T> missing) {
+        for (Map.Entry<String, T> entry : quotes.entrySet()) {
+            T sharedQuote = shared == null ? null : shared.get(entry.getKey());
+
+            if (sharedQuote == null) {
+                missing.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            copyValues(sharedQuote, entry.getValue());
+            entry.getValue().setStale(outdated || sharedQuote.isStale());
+
+            if (outdated) {
+                missing.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void copyValues(Quote from, Quote to) {
+        // The setters only change the version if a value changed
+        to.setPrice(from.getPrice());
+        to.setMarketCap(from.getMarketCap());
+        to.setPercentChange24h(from.getPercentChange24h());
+
+        if (to instanceof CryptoQuote) {
+            ((CryptoQuote)to).setRank(((CryptoQuote)from).getRank());
+        }
+    }
+
+    private void openSharedTable() {
+        Path file = empty(config.getSharedQuoteFile()) ? SharedQuoteTable.defaultFile() : Paths.get(config.getSharedQuoteFile());
+
+        try {
+            sharedTable = new SharedQuoteTable(file, SharedQuoteTable.defaultCapacity);
+        } catch (IOException ioe) {
+            System.err.println("Could not open shared quote table: " + ioe);
+        }
+    }
+
+    private void openQuoteLog() {
+        int segmentRecords = config.getQuoteLogSegmentRecords();
+        int maxSegments = config.getQuoteLogMaxSegments();
+
+        if (segmentRecords <= 0) {
+            segmentRecords = defaultQuoteLogSegmentRecords;
+        }
+
+        if (maxSegments <= 0) {
+            maxSegments = defaultQuoteLogMaxSegments;
+        }
+
+        try {
+            quoteLog = new QuoteLog(Paths.get(config.getQuoteLogDirectory()), segmentRecords, maxSegments);
+        } catch (IOException ioe) {
+            System.err.println("Could not open quote log: " + ioe);
+            return;
+        }
+
+        logExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cfsticker-log");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static boolean empty(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    /**
+     * Returns a virtual thread per task executor when running on Java 21 or
+     * later, otherwise a cached pool of daemon threads.
+     */
+    private static ExecutorService newFetchExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)method.invoke(null);
+        } catch (ReflectiveOperationException roe) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "cfsticker-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Joins symbols into comma separated lists of at most maxSymbols symbols
+     * and maxLength characters each.
+     */
+    public static ArrayList<String> joinSymbols(Iterable<String> symbols, int maxSymbols, int maxLength) {
+        ArrayList<String> symbolLists = new ArrayList<String>();
+        StringBuilder symbolList = new StringBuilder();
+        int count = 0;
+
+        for (String symbol : symbols) {
+            if (count > 0 && (count >= maxSymbols || symbolList.length() + 1 + symbol.length() > maxLength)) {
+                symbolLists.add(symbolList.toString());
+                symbolList.setLength(0);
+                count = 0;
+            }
+
+            if (count > 0) {
+                symbolList.append(',');
+            }
+
+            symbolList.append(symbol);
+            count++;
+        }
+
+        if (count > 0) {
+            symbolLists.add(symbolList.toString());
+        }
+
+        return symbolLists;
+    }
+
+    /**
+     * One provider fetch of one quote type.
+     *
+     * The provider updates new copies of the quotes on the fetch executor,
+     * and the copies are applied to the quotes on the scheduler thread once
+     * the fetch has exited. A fetch still running after it was cancelled is
+     * not applied, so its requests cannot change quotes being published.
+     */
+    private class Fetch<T extends Quote> implements Runnable {
+        private QuoteProvider provider;
+        private String type;
+        private Map<String, T> quotes;
+        private TreeMap<String, T> fetched = new TreeMap<String, T>();
+        private Consumer<Map<String, T>> request;
+        private LatencyHistogram latency;
+        private FetchTask task;
+        private boolean skipped;
+        private boolean failed;
+
+        private Fetch(QuoteProvider provider, String type, Map<String, T> quotes, Function<String, T> newQuote,
+                      Consumer<Map<String, T>> request, LatencyHistogram latency) {
+            this.provider = provider;
+            this.type = type;
+            this.quotes = quotes;
+            this.request = request;
+            this.latency = latency;
+
+            for (String symbol : quotes.keySet()) {
+                fetched.put(symbol, newQuote.apply(symbol));
+            }
+        }
+
+        private Future<?> submit() {
+            task = new FetchTask(this);
+            fetchExecutor.execute(task);
+            return task;
+        }
+
+        private void runNow() {
+            run();
+            applyFetched();
+        }
+
+        /**
+         * Runs the provider request unless the provider's circuit breaker is
+         * open.
+         */
+        public void run() {
+            QuoteFetchEvent event = new QuoteFetchEvent();
+            event.begin();
+            long start = System.nanoTime();
+
+            if (!circuitBreakers.get(provider.getName()).allowRequest()) {
+                skipped = true;
+            } else {
+                request.accept(fetched);
+            }
+
+            latency.recordSince(start);
+            event.commit(provider.getName(), type, quotes.size());
+        }
+
+        private void apply() {
+            if (task.isCancelled()) {
+                if (!task.hasExited()) {
+                    circuitBreakers.get(provider.getName()).recordFailure();
+                    markStale(quotes);
+                    return;
+                }
+
+                failed = true;
+            } else {
+                try {
+                    task.get();
+                } catch (ExecutionException | InterruptedException e) {
+                    failed = true;
+                }
+            }
+
+            applyFetched();
+        }
+
+        /**
+         * Copies the fetched values into the quotes and records the outcome
+         * with the provider's circuit breaker. A copy was fetched if the
+         * provider set any of its values. Quotes that were fetched before but
+         * not in this fetch are marked stale.
+         */
+        private void applyFetched() {
+            if (skipped) {
+                markStale(quotes);
+                return;
+            }
+
+            int unfetched = 0;
+
+            for (Map.Entry<String, T> entry : quotes.entrySet()) {
+                T quote = entry.getValue();
+                T copy = fetched.get(entry.getKey());
+
+                if (copy.getVersion() > 0) {
+                    quote.setName(copy.getName());
+                    copyValues(copy, quote);
+                    quote.setStale(false);
+                } else {
+                    unfetched++;
+
+                    if (quote.getVersion() > 0) {
+                        quote.setStale(true);
+                    }
+                }
+            }
+
+            CircuitBreaker breaker = circuitBreakers.get(provider.getName());
+
+            if (failed || unfetched > quotes.size() * maxUnfetchedFraction) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+        }
+    }
+
+    private class UpdateTask implements Runnable {
+        public void run() {
+            // An exception would cancel the interval update
+            try {
+                updateAll();
+            } catch (RuntimeException re) {
+                System.err.println(re);
+            }
+        }
+    }
+
+    /**
+     * Publishes the shared table when the leader wrote it, and takes the
+     * lead when the leader has exited.
+     */
+    private class SharedPollTask implements Runnable {
+        public void run() {
+            try {
+                if (!sharedTable.isLeader() && sharedTable.tryLead()) {
+                    updateAll();
+                } else if (!sharedTable.isLeader() && sharedTable.getSequence() != sharedSequence) {
+                    readSharedTable(false);
+                    publish();
+                }
+            } catch (RuntimeException re) {
+                System.err.println(re);
+            }
+        }
+    }
+}
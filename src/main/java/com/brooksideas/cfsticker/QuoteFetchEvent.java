@@ -0,0 +1,37 @@
+package com.brooksideas.cfsticker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for fetching all quotes of one type from a
+ * provider, spanning its requests.
+ */
+@Name("com.brooksideas.cfsticker.QuoteFetch")
+@Label("Quote Fetch")
+@Category({ "CryptoFiatStockTicker", "Quotes" })
+@Description("Fetch of all quotes of one type from a provider")
+public class QuoteFetchEvent extends Event {
+    @Label("Provider")
+    String provider;
+
+    @Label("Quote Type")
+    String quoteType;
+
+    @Label("Symbol Count")
+    int symbolCount;
+
+    public void commit(String provider, String quoteType, int symbolCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.quoteType = quoteType;
+            this.symbolCount = symbolCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.brooksideas.cfsticker;
+
+/**
+ * Price and market cap formatting without Formatter or temporary strings.
+ *
+ * Text is written into a char array or appended to a StringBuilder from a
+ * reusable buffer, and matches String.format with the same precision,
+ * including its half up rounding of the shortest decimal form of the
+ * value. An instance is not thread safe.
+ */
+public class QuoteFormatter {
+    // Longest output is a String.format of Double.MAX_VALUE with a suffix
+    public static final int maxLength = 320;
+    private static final double[] powersOfTen = { 1.0, 10.0, 100.0, 1000.0 };
+
+    private char[] buffer = new char[maxLength];
+
+    /**
+     * Appends the price with 0, 2 or 3 decimals like App.formatPrice.
+     */
+    public StringBuilder appendPrice(StringBuilder sb, double price) {
+        int length = writePrice(price, buffer, 0);
+        return sb.append(buffer, 0, length);
+    }
+
+    /**
+     * Appends the market cap in millions with a b or m suffix like
+     * App.formatMarketCap.
+     */
+    public StringBuilder appendMarketCap(StringBuilder sb, double marketCap) {
+        int length = writeMarketCap(marketCap, buffer, 0);
+        return sb.append(buffer, 0, length);
+    }
+
+    /**
+     * Writes the price at offset and returns the offset after it.
+     */
+    public static int writePrice(double price, char[] out, int offset) {
+        if (price >= 100.0) {
+            return writeFixed(price, 0, out, offset);
+        } else if (price >= 1.0) {
+            return writeFixed(price, 2, out, offset);
+        } else {
+            return writeFixed(price, 3, out, offset);
+        }
+    }
+
+    /**
+     * Writes the market cap at offset and returns the offset after it.
+     */
+    public static int writeMarketCap(double marketCap, char[] out, int offset) {
+        int end;
+
+        if (marketCap >= 100000.0) {
+            end = writeFixed(marketCap / 1000.0, 0, out, offset);
+            out[end++] = 'b';
+        } else if (marketCap >= 10000.0) {
+            end = writeFixed(marketCap / 1000.0, 1, out, offset);
+            out[end++] = 'b';
+        } else if (marketCap >= 1000.0) {
+            end = writeFixed(marketCap / 1000.0, 2, out, offset);
+            out[end++] = 'b';
+        } else if (marketCap >= 100.0) {
+            end = writeFixed(marketCap, 0, out, offset);
+            out[end++] = 'm';
+        } else if (marketCap >= 10.0) {
+            end = writeFixed(marketCap, 1, out, offset);
+            out[end++] = 'm';
+        } else {
+            end = writeFixed(marketCap, 2, out, offset);
+            out[end++] = 'm';
+        }
+
+        return end;
+    }
+
+    /**
+     * Writes the value with 0 to 3 decimals at offset and returns the offset
+     * after it. Values of 1e15 and above, where a double has no room left
+     * for the rounding digit, fall back to String.format.
+     */
+    public static int writeFixed(double value, int decimals, char[] out, int offset) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1.0e15) {
+            return writeString(String.format("%." + decimals + "f", value), out, offset);
+        }
+
+        // Formatter keeps the sign of negative values that round to zero
+        if (value < 0.0 || (value == 0.0 && 1.0 / value < 0.0)) {
+            out[offset++] = '-';
+            value = -value;
+        }
+
+        double scale = powersOfTen[decimals];
+        long units = (long)Math.floor(value * scale);
+
+        // Round half up on the shortest decimal form: the value is a tie
+        // exactly when it is the double nearest to units + 0.5
+        double half = (units + 0.5) / scale;
+
+        if (value >= half) {
+            units++;
+        } else if (value < (units - 0.5) / scale) {
+            // The scaled value was one unit too high
+            units--;
+        }
+
+        long whole = units;
+        long fraction = 0;
+
+        if (decimals > 0) {
+            long divisor = (long)scale;
+            whole = units / divisor;
+            fraction = units % divisor;
+        }
+
+        offset = writeLong(whole, out, offset);
+
+        if (decimals > 0) {
+            out[offset++] = '.';
+
+            for (int i = decimals - 1; i >= 0; i--) {
+                out[offset + i] = (char)('0' + fraction % 10);
+                fraction /= 10;
+            }
+
+            offset += decimals;
+        }
+
+        return offset;
+    }
+
+    private static int writeLong(long value, char[] out, int offset) {
+        int digits = 1;
+
+        for (long x = value; x >= 10; x /= 10) {
+            digits++;
+        }
+
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (char)('0' + value % 10);
+            value /= 10;
+        }
+
+        return offset + digits;
+    }
+
+    private static int writeString(String s, char[] out, int offset) {
+        s.getChars(0, s.length(), out, offset);
+        return offset + s.length();
+    }
+}
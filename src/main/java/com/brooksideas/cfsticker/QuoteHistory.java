@@ -0,0 +1,267 @@
+package com.brooksideas.cfsticker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last samples of each symbol's quotes kept in memory.
+ *
+ * Each symbol has a ring buffer of primitive timestamps, prices, market
+ * caps and 24 hour changes holding at most capacity samples, so memory per
+ * symbol is bounded and nothing is boxed. A sample is only recorded for a
+ * fetched quote whose price, market cap or change moved since the last
+ * sample, so marking a quote stale adds no sample. The buffers start small
+ * and grow up to the capacity.
+ *
+ * Samples are recorded by the engine thread and can be read from any thread.
+ */
+public class QuoteHistory {
+    private static final int initialCapacity = 16;
+
+    private int capacity;
+    private ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<String, Series>();
+
+    public QuoteHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be at least 1: " + capacity);
+        }
+
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Records the quote at the timestamp if it was fetched and its values
+     * changed since the last sample for its symbol. Returns true if a
+     * sample was added.
+     */
+    public boolean record(Quote quote, long timestamp) {
+        if (quote.getVersion() == 0) {
+            return false;
+        }
+
+        Series s = series.computeIfAbsent(quote.getSymbol(), symbol -> new Series(Math.min(initialCapacity, capacity)));
+
+        synchronized (s) {
+            if (s.size > 0 && (s.version == quote.getVersion() || s.sameAsLast(quote))) {
+                s.version = quote.getVersion();
+                return false;
+            }
+
+            s.version = quote.getVersion();
+            s.add(timestamp, quote.getPrice(), quote.getMarketCap(), quote.getPercentChange24h(), capacity);
+            return true;
+        }
+    }
+
+    /**
+     * Records every quote in the map at the timestamp.
+     */
+    public void recordAll(Map<String, ? extends Quote> quotes, long timestamp) {
+        for (Quote quote : quotes.values()) {
+            record(quote, timestamp);
+        }
+    }
+
+    public void remove(String symbol) {
+        series.remove(symbol);
+    }
+
+    public ArrayList<String> getSymbols() {
+        return new ArrayList<String>(series.keySet());
+    }
+
+    public int getSize(String symbol) {
+        Series s = series.get(symbol);
+
+        if (s == null) {
+            return 0;
+        }
+
+        synchronized (s) {
+            return s.size;
+        }
+    }
+
+    /**
+     * Returns a copy of all samples for the symbol, oldest first.
+     */
+    public Samples getSamples(String symbol) {
+        return getRange(symbol, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a copy of the samples for the symbol with from <= timestamp < to,
+     * oldest first. The range is found by binary search.
+     */
+    public Samples getRange(String symbol, long from, long to) {
+        Series s = series.get(symbol);
+
+        if (s == null) {
+            return new Samples(0);
+        }
+
+        synchronized (s) {
+            int first = s.search(from);
+            int last = s.search(to);
+            Samples samples = new Samples(last - first);
+
+            for (int i = first; i < last; i++) {
+                int j = s.index(i);
+                int k = i - first;
+                samples.timestamps[k] = s.timestamps[j];
+                samples.prices[k] = s.prices[j];
+                samples.marketCaps[k] = s.marketCaps[j];
+                samples.percentChanges24h[k] = s.percentChanges24h[j];
+            }
+
+            return samples;
+        }
+    }
+
+    /**
+     * Copy of a symbol's samples in parallel primitive arrays, oldest first.
+     */
+    public static class Samples {
+        private long[] timestamps;
+        private double[] prices;
+        private double[] marketCaps;
+        private double[] percentChanges24h;
+
+        private Samples(int size) {
+            timestamps = new long[size];
+            prices = new double[size];
+            marketCaps = new double[size];
+            percentChanges24h = new double[size];
+        }
+
+        public int getSize() { return timestamps.length; }
+
+        public long[] getTimestamps() { return timestamps; }
+
+        public double[] getPrices() { return prices; }
+
+        public double[] getMarketCaps() { return marketCaps; }
+
+        public double[] getPercentChanges24h() { return percentChanges24h; }
+
+        /**
+         * Percent change of the price from the first to the last sample,
+         * or NaN without two samples or a zero first price.
+         */
+        public double getPriceChangePercent() {
+            int size = prices.length;
+
+            if (size < 2 || prices[0] == 0.0) {
+                return Double.NaN;
+            }
+
+            return (prices[size - 1] - prices[0]) / prices[0] * 100.0;
+        }
+    }
+
+    /**
+     * Ring buffer of one symbol's samples. Guarded by its own lock.
+     */
+    private static class Series {
+        private long[] timestamps;
+        private double[] prices;
+        private double[] marketCaps;
+        private double[] percentChanges24h;
+        private int head;
+        private int size;
+        private long version;
+
+        private Series(int length) {
+            timestamps = new long[length];
+            prices = new double[length];
+            marketCaps = new double[length];
+            percentChanges24h = new double[length];
+        }
+
+        private void add(long timestamp, double price, double marketCap, double percentChange24h, int capacity) {
+            if (size == timestamps.length && size < capacity) {
+                grow(Math.min(capacity, size * 2));
+            }
+
+            int i;
+
+            if (size < timestamps.length) {
+                i = index(size);
+                size++;
+            } else {
+                // Full, overwrite the oldest sample
+                i = head;
+                head = (head + 1) % timestamps.length;
+            }
+
+            timestamps[i] = timestamp;
+            prices[i] = price;
+            marketCaps[i] = marketCap;
+            percentChanges24h[i] = percentChange24h;
+        }
+
+        private boolean sameAsLast(Quote quote) {
+            int last = index(size - 1);
+            return Double.compare(prices[last], quote.getPrice()) == 0
+                && Double.compare(marketCaps[last], quote.getMarketCap()) == 0
+                && Double.compare(percentChanges24h[last], quote.getPercentChange24h()) == 0;
+        }
+
+        /**
+         * Copies the samples oldest first into larger arrays.
+         */
+        private void grow(int length) {
+            timestamps = unwrap(timestamps, length);
+            prices = unwrap(prices, length);
+            marketCaps = unwrap(marketCaps, length);
+            percentChanges24h = unwrap(percentChanges24h, length);
+            head = 0;
+        }
+
+        private long[] unwrap(long[] values, int length) {
+            long[] copy = Arrays.copyOfRange(values, head, head + length);
+            System.arraycopy(values, 0, copy, values.length - head, head);
+            return copy;
+        }
+
+        private double[] unwrap(double[] values, int length) {
+            double[] copy = Arrays.copyOfRange(values, head, head + length);
+            System.arraycopy(values, 0, copy, values.length - head, head);
+            return copy;
+        }
+
+        /**
+         * Array index of the i'th oldest sample.
+         */
+        private int index(int i) {
+            return (head + i) % timestamps.length;
+        }
+
+        /**
+         * Position of the first sample with a timestamp >= t.
+         * Samples are recorded in time order.
+         */
+        private int search(long t) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (timestamps[index(mid)] < t) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+    }
+}
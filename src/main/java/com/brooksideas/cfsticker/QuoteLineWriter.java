@@ -0,0 +1,92 @@
+package com.brooksideas.cfsticker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes quote snapshots as newline-delimited JSON, one line per quote:
+ *
+ * {"type":"crypto","symbol":"BTC","timestamp":1566705159810,"price":10128.0,
+ *  "marketCap":181244.77,"percentChange24h":-2.20153,"rank":1}
+ *
+ * Only quotes that were fetched and changed since they were last written
+ * are written. Output is buffered and flushed once per snapshot.
+ */
+public class QuoteLineWriter implements QuoteEngine.QuoteListener, Closeable {
+    private JsonGenerator generator;
+    private QuoteVersions versions = new QuoteVersions();
+
+    public QuoteLineWriter(JsonFactory factory, OutputStream out) throws IOException {
+        generator = factory.createGenerator(out);
+        generator.setRootValueSeparator(null);
+    }
+
+    public void quotesUpdated(QuoteSnapshot snapshot) {
+        try {
+            write(snapshot);
+        } catch (IOException ioe) {
+            System.err.println("Could not write quotes: " + ioe);
+        }
+    }
+
+    /**
+     * Writes the changed quotes and flushes. Returns the number of lines.
+     */
+    public synchronized int write(QuoteSnapshot snapshot) throws IOException {
+        long timestamp = snapshot.getTimestamp();
+        ArrayList<Quote> changed = versions.changed(snapshot);
+
+        for (Quote quote : changed) {
+            writeQuote(generator, quote, timestamp);
+            generator.writeRaw('\n');
+        }
+
+        generator.flush();
+        return changed.size();
+    }
+
+    public synchronized void close() throws IOException {
+        generator.close();
+    }
+
+    /**
+     * Writes the quote as one JSON object. Fiat quotes have no market cap
+     * or change, and only crypto quotes have a rank.
+     */
+    public static void writeQuote(JsonGenerator generator, Quote quote, long timestamp) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", typeName(quote));
+        generator.writeStringField("symbol", quote.getSymbol());
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeNumberField("price", quote.getPrice());
+
+        if (!(quote instanceof FiatQuote)) {
+            generator.writeNumberField("marketCap", quote.getMarketCap());
+            generator.writeNumberField("percentChange24h", quote.getPercentChange24h());
+        }
+
+        if (quote instanceof CryptoQuote) {
+            generator.writeNumberField("rank", ((CryptoQuote)quote).getRank());
+        }
+
+        if (quote.isStale()) {
+            generator.writeBooleanField("stale", true);
+        }
+
+        generator.writeEndObject();
+    }
+
+    private static String typeName(Quote quote) {
+        if (quote instanceof CryptoQuote) {
+            return "crypto";
+        } else if (quote instanceof FiatQuote) {
+            return "fiat";
+        }
+
+        return "stock";
+    }
+}
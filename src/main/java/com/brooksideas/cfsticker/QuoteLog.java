@@ -0,0 +1,396 @@
+package com.brooksideas.cfsticker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of quote updates in memory-mapped segment files.
+ *
+ * Every record is 64 bytes:
+ *
+ *   0  long   timestamp, never 0 for a written record
+ *   8  long   quote version
+ *  16  byte   quote type, 1 crypto, 2 fiat, 3 stock
+ *  17  byte   symbol length
+ *  18  byte[] symbol, ASCII, at most 14 bytes
+ *  32  double price
+ *  40  double market cap
+ *  48  double 24 hour percent change
+ *  56  int    crypto rank
+ *  60  int    CRC32 of bytes 0 to 59
+ *
+ * Segments are named by the sequence number of their first record and are
+ * created at full size, so unwritten records are zero. When a segment is
+ * full the next one is created and the oldest segments beyond the retention
+ * limit are deleted. On open the last segment is scanned up to the first
+ * zero or corrupt record, so a record torn by a crash is overwritten.
+ *
+ * appendChanged forces its records to the file before it returns, so once
+ * a snapshot batch is appended it survives a crash of the process or the
+ * machine. Records written with append alone are only forced by the next
+ * force, appendChanged, segment roll or close, so a machine crash can lose
+ * them, although the operating system still writes them out if only the
+ * process dies.
+ *
+ * A log is written by one thread at a time. A lock file in the directory
+ * keeps other processes from writing the same log.
+ */
+public class QuoteLog implements Closeable {
+    public static final int recordSize = 64;
+    public static final byte cryptoType = 1;
+    public static final byte fiatType = 2;
+    public static final byte stockType = 3;
+    private static final int maxSymbolLength = 14;
+    private static final int checksumOffset = 60;
+    private static final String segmentPrefix = "quotes-";
+    private static final String segmentSuffix = ".log";
+    private static final String lockName = "writer.lock";
+
+    private Path directory;
+    private int segmentRecords;
+    private int maxSegments;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private int position;
+    private int forcedPosition;
+    private CRC32 crc = new CRC32();
+    private byte[] record = new byte[recordSize];
+    private ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private QuoteVersions versions = new QuoteVersions();
+
+    /**
+     * Opens or creates the log in the directory and recovers the write
+     * position of the last segment.
+     */
+    public QuoteLog(Path directory, int segmentRecords, int maxSegments) throws IOException {
+        if (segmentRecords < 1 || maxSegments < 1) {
+            throw new IllegalArgumentException("Quote log needs at least one record per segment and one segment");
+        }
+
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        lock(directory);
+        ArrayList<Path> segments = segments(directory);
+
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            openSegment(sequence(last));
+            position = validRecords(segment, Math.min(segmentRecords, segment.capacity() / recordSize));
+            forcedPosition = position;
+        }
+    }
+
+    /**
+     * Sequence number the next record will get.
+     */
+    public long getNextSequence() {
+        return segmentStart + position;
+    }
+
+    /**
+     * Appends a record for the quote.
+     */
+    public void append(Quote quote, long timestamp) throws IOException {
+        if (position >= segment.capacity() / recordSize) {
+            roll();
+        }
+
+        String symbol = quote.getSymbol();
+        int length = Math.min(symbol.length(), maxSymbolLength);
+        recordBuffer.clear();
+        recordBuffer.putLong(timestamp == 0 ? 1 : timestamp);
+        recordBuffer.putLong(quote.getVersion());
+        recordBuffer.put(type(quote));
+        recordBuffer.put((byte)length);
+
+        for (int i = 0; i < maxSymbolLength; i++) {
+            recordBuffer.put(i < length ? (byte)symbol.charAt(i) : 0);
+        }
+
+        recordBuffer.putDouble(quote.getPrice());
+        recordBuffer.putDouble(quote.getMarketCap());
+        recordBuffer.putDouble(quote.getPercentChange24h());
+        recordBuffer.putInt(quote instanceof CryptoQuote ? ((CryptoQuote)quote).getRank() : 0);
+        crc.reset();
+        crc.update(record, 0, checksumOffset);
+        recordBuffer.putInt((int)crc.getValue());
+
+        segment.put(position * recordSize, record);
+        position++;
+    }
+
+    /**
+     * Appends the fetched snapshot quotes whose version changed since they
+     * were last appended and returns the number of records written.
+     */
+    public int appendChanged(QuoteSnapshot snapshot) throws IOException {
+        long timestamp = snapshot.getTimestamp();
+        ArrayList<Quote> changed = versions.changed(snapshot);
+
+        for (Quote quote : changed) {
+            append(quote, timestamp);
+        }
+
+        if (!changed.isEmpty()) {
+            force();
+        }
+
+        return changed.size();
+    }
+
+    /**
+     * Writes the records appended to the current segment since it was last
+     * forced to the file.
+     */
+    public void force() {
+        if (position > forcedPosition) {
+            segment.force(forcedPosition * recordSize, (position - forcedPosition) * recordSize);
+            forcedPosition = position;
+        }
+    }
+
+    public void close() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+        }
+
+        if (lockChannel != null) {
+            // Closing the channel releases the lock
+            lockChannel.close();
+            lockChannel = null;
+            lock = null;
+        }
+    }
+
+    private void lock(Path directory) throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(lockName), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException ofle) {
+            lock = null;
+        }
+
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            throw new IOException("Quote log " + directory + " is being written by another instance");
+        }
+    }
+
+    /**
+     * Opens a reader over all records in the log directory, oldest first.
+     */
+    public static Reader openReader(Path directory) throws IOException {
+        return new Reader(segments(directory));
+    }
+
+    private void roll() throws IOException {
+        segment.force();
+        channel.close();
+        openSegment(segmentStart + position);
+        position = 0;
+
+        // Retention
+        ArrayList<Path> segments = segments(directory);
+
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void openSegment(long start) throws IOException {
+        Path path = directory.resolve(segmentName(start));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), (long)segmentRecords * recordSize);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segmentStart = start;
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    private static byte type(Quote quote) {
+        if (quote instanceof CryptoQuote) {
+            return cryptoType;
+        } else if (quote instanceof FiatQuote) {
+            return fiatType;
+        }
+
+        return stockType;
+    }
+
+    private static String segmentName(long start) {
+        return segmentPrefix + String.format("%020d", start) + segmentSuffix;
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(segmentPrefix.length(), name.length() - segmentSuffix.length()));
+    }
+
+    /**
+     * Segment files in sequence order. The zero padded names sort in order.
+     */
+    private static ArrayList<Path> segments(Path directory) throws IOException {
+        ArrayList<Path> segments = new ArrayList<Path>();
+
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, segmentPrefix + "*" + segmentSuffix)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Number of valid records at the start of the segment.
+     */
+    private static int validRecords(ByteBuffer buffer, int records) {
+        CRC32 check = new CRC32();
+
+        for (int i = 0; i < records; i++) {
+            int offset = i * recordSize;
+
+            if (buffer.getLong(offset) == 0) {
+                return i;
+            }
+
+            check.reset();
+            ByteBuffer slice = buffer.slice(offset, checksumOffset);
+            check.update(slice);
+
+            if ((int)check.getValue() != buffer.getInt(offset + checksumOffset)) {
+                System.err.println("Quote log record " + i + " is corrupt, ignoring the rest of the segment");
+                return i;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Sequential reader over the log records. Call next before reading
+     * each record.
+     */
+    public static class Reader implements Closeable {
+        private ArrayList<Path> segments;
+        private int segmentIndex = -1;
+        private FileChannel channel;
+        private MappedByteBuffer segment;
+        private long segmentStart;
+        private int records;
+        private int position = -1;
+        private int offset;
+        private byte[] symbol = new byte[maxSymbolLength];
+
+        private Reader(ArrayList<Path> segments) {
+            this.segments = segments;
+        }
+
+        /**
+         * Moves to the next record and returns false at the end of the log.
+         */
+        public boolean next() throws IOException {
+            position++;
+
+            while (segment == null || position >= records) {
+                if (!nextSegment()) {
+                    return false;
+                }
+            }
+
+            offset = position * recordSize;
+            return true;
+        }
+
+        public long getSequence() { return segmentStart + position; }
+
+        public long getTimestamp() { return segment.getLong(offset); }
+
+        public long getVersion() { return segment.getLong(offset + 8); }
+
+        public byte getType() { return segment.get(offset + 16); }
+
+        public String getSymbol() {
+            int length = segment.get(offset + 17);
+            segment.get(offset + 18, symbol, 0, length);
+            return new String(symbol, 0, length, StandardCharsets.US_ASCII);
+        }
+
+        public double getPrice() { return segment.getDouble(offset + 32); }
+
+        public double getMarketCap() { return segment.getDouble(offset + 40); }
+
+        public double getPercentChange24h() { return segment.getDouble(offset + 48); }
+
+        public int getRank() { return segment.getInt(offset + 56); }
+
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+
+            segment = null;
+            segmentIndex = segments.size();
+        }
+
+        private boolean nextSegment() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+
+            segment = null;
+            segmentIndex++;
+
+            if (segmentIndex >= segments.size()) {
+                return false;
+            }
+
+            Path path = segments.get(segmentIndex);
+
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            } catch (IOException ioe) {
+                // Deleted by retention while reading
+                System.err.println(ioe);
+                return true;
+            }
+
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            segmentStart = sequence(path);
+            records = validRecords(segment, segment.capacity() / recordSize);
+            position = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.brooksideas.cfsticker;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for reading and parsing one provider response.
+ */
+@Name("com.brooksideas.cfsticker.QuoteParse")
+@Label("Quote Parse")
+@Category({ "CryptoFiatStockTicker", "Quotes" })
+@Description("Read and parse of a provider response body")
+public class QuoteParseEvent extends Event {
+    @Label("Provider")
+    String provider;
+
+    @Label("Symbol Count")
+    @Description("Quotes updated from the response")
+    int symbolCount;
+
+    @Label("Payload Size")
+    @Description("Response body bytes before decoding")
+    @DataAmount
+    long payloadSize;
+
+    public void commit(String provider, int symbolCount, long payloadSize) {
+        end();
+
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.symbolCount = symbolCount;
+            this.payloadSize = payloadSize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.brooksideas.cfsticker;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming parsers for provider responses.
+ *
+ * Each response is read in a single pass and only the fields shown in the
+ * ticker are kept. Values are rounded and written straight into the quote
+ * objects, so no intermediate maps are built.
+ */
+public class QuoteParser {
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Parses a coinmarketcap quotes response into the quotes with matching
+     * symbols.
+     */
+    public static ParseResult parseCryptoQuotes(JsonParser parser, Map<String, CryptoQuote> quotes) throws IOException {
+        ParseResult result = new ParseResult();
+        long allocated = allocatedBytes();
+        String field;
+
+        expect(parser, JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("status".equals(field)) {
+                parseCryptoStatus(parser, result);
+            } else if ("data".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String symbol = parser.getCurrentName();
+                    CryptoQuote quote = quotes.get(symbol);
+                    parser.nextToken();
+
+                    if (quote == null || parser.currentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+
+                    parseCryptoQuote(parser, quote);
+                    result.symbols.add(symbol);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        result.allocatedBytes = allocatedBytes() - allocated;
+        return result;
+    }
+
+    /**
+     * Parses a currencyconverterapi convert response into the quotes with
+     * matching symbol_USD pairs. Both compact and ultra compact responses are
+     * supported.
+     */
+    public static ParseResult parseFiatQuotes(JsonParser parser, Map<String, FiatQuote> quotes) throws IOException {
+        ParseResult result = new ParseResult();
+        long allocated = allocatedBytes();
+        String field;
+
+        expect(parser, JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ("status".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                result.errorCode = parser.getIntValue();
+                continue;
+            }
+
+            if ("error".equals(field) && token == JsonToken.VALUE_STRING) {
+                result.errorMessage = parser.getText();
+                continue;
+            }
+
+            int i = field.indexOf("_USD");
+            FiatQuote quote = null;
+
+            if (i > 0) {
+                quote = quotes.get(field.substring(0, i));
+            }
+
+            if (quote == null) {
+                parser.skipChildren();
+                continue;
+            }
+
+            if (token == JsonToken.START_OBJECT) {
+                // compact: {"EUR_USD":{"val":1.16672}}
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    field = parser.getCurrentName();
+                    token = parser.nextToken();
+
+                    if ("val".equals(field) && token.isNumeric()) {
+                        quote.setPrice(roundPrice(parser.getDoubleValue()));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (token.isNumeric()) {
+                // ultra compact: {"EUR_USD":1.16672}
+                quote.setPrice(roundPrice(parser.getDoubleValue()));
+            } else {
+                continue;
+            }
+
+            result.symbols.add(quote.getSymbol());
+        }
+
+        result.allocatedBytes = allocatedBytes() - allocated;
+        return result;
+    }
+
+    /**
+     * Parses an iex market batch response with quote types into the quotes
+     * with matching symbols.
+     */
+    public static ParseResult parseStockQuotes(JsonParser parser, Map<String, StockQuote> quotes) throws IOException {
+        ParseResult result = new ParseResult();
+        long allocated = allocatedBytes();
+        String field;
+
+        expect(parser, JsonToken.START_OBJECT);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String symbol = parser.getCurrentName();
+            StockQuote quote = quotes.get(symbol);
+            parser.nextToken();
+
+            if (quote == null || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if ("quote".equals(field) && token == JsonToken.START_OBJECT) {
+                    parseStockFields(parser, quote);
+                    result.symbols.add(symbol);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        result.allocatedBytes = allocatedBytes() - allocated;
+        return result;
+    }
+
+    private static void parseCryptoStatus(JsonParser parser, ParseResult result) throws IOException {
+        String field;
+
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ("error_code".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                result.errorCode = parser.getIntValue();
+            } else if ("error_message".equals(field) && token == JsonToken.VALUE_STRING) {
+                result.errorMessage = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseCryptoQuote(JsonParser parser, CryptoQuote quote) throws IOException {
+        String field;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ("name".equals(field) && token == JsonToken.VALUE_STRING) {
+                quote.setName(parser.getText());
+            } else if ("cmc_rank".equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                quote.setRank(parser.getIntValue());
+            } else if ("quote".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    field = parser.getCurrentName();
+                    token = parser.nextToken();
+
+                    if ("USD".equals(field) && token == JsonToken.START_OBJECT) {
+                        parseCryptoUsd(parser, quote);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseCryptoUsd(JsonParser parser, CryptoQuote quote) throws IOException {
+        String field;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (!token.isNumeric()) {
+                parser.skipChildren();
+            } else if ("price".equals(field)) {
+                quote.setPrice(roundPrice(parser.getDoubleValue()));
+            } else if ("market_cap".equals(field)) {
+                // Market cap in millions with 2 decimal places
+                quote.setMarketCap(Math.round(parser.getDoubleValue() / 10000.0) / 100.0);
+            } else if ("percent_change_24h".equals(field)) {
+                // cmc 5% = 5.0
+                quote.setPercentChange24h(parser.getDoubleValue());
+            }
+        }
+    }
+
+    private static void parseStockFields(JsonParser parser, StockQuote quote) throws IOException {
+        String field;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ("companyName".equals(field) && token == JsonToken.VALUE_STRING) {
+                quote.setName(parser.getText());
+            } else if (!token.isNumeric()) {
+                parser.skipChildren();
+            } else if ("latestPrice".equals(field)) {
+                quote.setPrice(roundPrice(parser.getDoubleValue()));
+            } else if ("marketCap".equals(field)) {
+                // Market cap in millions
+                quote.setMarketCap(Math.round(parser.getDoubleValue() / 1000000.0));
+            } else if ("changePercent".equals(field)) {
+                // iex 5% = 0.05
+                quote.setPercentChange24h(parser.getDoubleValue() * 100.0);
+            }
+        }
+    }
+
+    /**
+     * Rounds to whole units at 100 and above, cents at 1 and above, and
+     * tenths of a cent below 1.
+     */
+    public static double roundPrice(double price) {
+        if (price >= 100.0) {
+            return Math.round(price);
+        } else if (price >= 1.0) {
+            return Math.round(price * 100.0) / 100.0;
+        } else {
+            return Math.round(price * 1000.0) / 1000.0;
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + token);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or 0 if the
+     * JVM does not track it.
+     */
+    private static long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            long bytes = ((com.sun.management.ThreadMXBean)threadBean).getCurrentThreadAllocatedBytes();
+
+            if (bytes > 0) {
+                return bytes;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Outcome of parsing one response
+     */
+    public static class ParseResult {
+        private int errorCode;
+        private String errorMessage;
+        private ArrayList<String> symbols = new ArrayList<String>();
+        private long allocatedBytes;
+
+        public int getErrorCode() { return errorCode; }
+
+        public String getErrorMessage() { return errorMessage; }
+
+        /**
+         * Returns the symbols whose quotes were updated.
+         */
+        public ArrayList<String> getSymbols() { return symbols; }
+
+        /**
+         * Returns the bytes allocated while parsing, or 0 if unknown.
+         */
+        public long getAllocatedBytes() { return allocatedBytes; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Map;
+
+/**
+ * Source of quotes for one or more of the crypto, fiat and stock ticker
+ * types.
+ *
+ * Providers are found with ServiceLoader and chosen by name with the
+ * cryptoProvider, fiatProvider and stockProvider config settings. Each get
+ * method updates the quotes in the map in place and reports failures
+ * without throwing, so one bad provider does not stop a refresh.
+ */
+public interface QuoteProvider {
+    /**
+     * Returns the name used to choose this provider in cfsticker.json.
+     */
+    String getName();
+
+    /**
+     * Called once before any quotes are requested.
+     */
+    void init(ProviderContext context);
+
+    default void getCryptoQuotes(Map<String, CryptoQuote> quotes) {
+        System.err.println("Quote provider " + getName() + " does not provide crypto quotes");
+    }
+
+    default void getFiatQuotes(Map<String, FiatQuote> quotes) {
+        System.err.println("Quote provider " + getName() + " does not provide fiat quotes");
+    }
+
+    default void getStockQuotes(Map<String, StockQuote> quotes) {
+        System.err.println("Quote provider " + getName() + " does not provide stock quotes");
+    }
+}
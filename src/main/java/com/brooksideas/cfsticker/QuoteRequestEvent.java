@@ -0,0 +1,35 @@
+package com.brooksideas.cfsticker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one provider request, from sending it until
+ * the response status arrives, or until the request fails with status -1.
+ */
+@Name("com.brooksideas.cfsticker.QuoteRequest")
+@Label("Quote Request")
+@Category({ "CryptoFiatStockTicker", "Quotes" })
+@Description("Provider request until the response status arrives")
+public class QuoteRequestEvent extends Event {
+    @Label("Provider")
+    String provider;
+
+    @Label("Symbol Count")
+    int symbolCount;
+
+    @Label("Status Code")
+    int statusCode;
+
+    public void commit(String provider, int symbolCount, int statusCode) {
+        if (shouldCommit()) {
+            this.provider = provider;
+            this.symbolCount = symbolCount;
+            this.statusCode = statusCode;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.brooksideas.cfsticker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server sharing the engine's quotes with other programs on the
+ * same host, so they do not need their own provider requests.
+ *
+ * GET /quotes returns the latest snapshot as JSON:
+ *
+ * {"timestamp":1566705159810,"quotes":[{"type":"crypto","symbol":"BTC",...},...]}
+ *
+ * GET /events is a Server-Sent Events stream. It starts with a snapshot
+ * event holding the latest snapshot, followed by a quotes event with the
+ * changed quotes after each refresh. The JSON of each refresh is written
+ * once and the same bytes are queued to every subscriber. A subscriber that
+ * falls too far behind is disconnected, interrupting its stream thread so a
+ * write blocked on a full socket does not keep holding the thread.
+ *
+ * The server only listens on the loopback address.
+ */
+public class QuoteServer implements QuoteEngine.QuoteListener, Closeable {
+    public static final String quotesPath = "/quotes";
+    public static final String eventsPath = "/events";
+    private static final int maxQueuedEvents = 64;
+    private static final int keepAliveSeconds = 15;
+    private static final byte[] keepAlive = ": keepalive\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonFactory factory;
+    private HttpServer server;
+    private ExecutorService executor;
+    private QuoteVersions versions = new QuoteVersions();
+    private volatile byte[] snapshotJson;
+    private volatile byte[] snapshotEvent;
+    private CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+
+    /**
+     * Creates the server on the port, or on any free port if it is 0.
+     * Each event stream holds a thread of the executor while connected.
+     */
+    public QuoteServer(JsonFactory factory, int port, ExecutorService executor) throws IOException {
+        this.factory = factory;
+        this.executor = executor;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext(quotesPath, this::handleQuotes);
+        server.createContext(eventsPath, this::handleEvents);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Serializes the snapshot and the changed quotes once and queues the
+     * change event to every subscriber.
+     */
+    public void quotesUpdated(QuoteSnapshot snapshot) {
+        byte[] changeEvent;
+
+        try {
+            ArrayList<Quote> all = new ArrayList<Quote>();
+            addFetched(snapshot.getCryptoQuotes(), all);
+            addFetched(snapshot.getFiatQuotes(), all);
+            addFetched(snapshot.getStockQuotes(), all);
+            byte[] json = toJson(snapshot.getTimestamp(), all);
+            snapshotEvent = toEvent("snapshot", json);
+            snapshotJson = json;
+            changeEvent = toEvent("quotes", toJson(snapshot.getTimestamp(), versions.changed(snapshot)));
+        } catch (IOException ioe) {
+            System.err.println("Could not serialize quotes: " + ioe);
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(changeEvent)) {
+                // Too slow
+                subscribers.remove(subscriber);
+                subscriber.disconnect();
+            }
+        }
+    }
+
+    public void close() {
+        server.stop(0);
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnect();
+        }
+
+        subscribers.clear();
+        executor.shutdownNow();
+    }
+
+    private void handleQuotes(HttpExchange exchange) throws IOException {
+        byte[] json = snapshotJson;
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+            } else if (json == null) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                exchange.sendResponseHeaders(200, json.length);
+                exchange.getResponseBody().write(json);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Streams events to one subscriber until it disconnects or falls behind.
+     */
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        Subscriber subscriber = new Subscriber(Thread.currentThread());
+
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+
+            // Subscribe before taking the snapshot so no change is missed
+            subscribers.add(subscriber);
+            byte[] event = snapshotEvent;
+
+            if (event != null) {
+                out.write(event);
+            }
+
+            out.flush();
+
+            while (true) {
+                event = subscriber.queue.poll(keepAliveSeconds, TimeUnit.SECONDS);
+                out.write(event == null ? keepAlive : event);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Disconnected
+        } finally {
+            subscribers.remove(subscriber);
+            subscriber.finish();
+            exchange.close();
+        }
+    }
+
+    private byte[] toJson(long timestamp, ArrayList<Quote> quotes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 + quotes.size() * 128);
+
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("timestamp", timestamp);
+            generator.writeArrayFieldStart("quotes");
+
+            for (Quote quote : quotes) {
+                QuoteLineWriter.writeQuote(generator, quote, timestamp);
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] toEvent(String name, byte[] json) {
+        byte[] header = ("event: " + name + "\ndata: ").getBytes(StandardCharsets.US_ASCII);
+        byte[] event = new byte[header.length + json.length + 2];
+        System.arraycopy(header, 0, event, 0, header.length);
+        System.arraycopy(json, 0, event, header.length, json.length);
+        event[event.length - 2] = '\n';
+        event[event.length - 1] = '\n';
+        return event;
+    }
+
+    /**
+     * Event queue and stream thread of one subscriber. Interrupting the
+     * thread ends a queue wait, and closes the socket if it is blocked in a
+     * write.
+     */
+    private static class Subscriber {
+        private LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<byte[]>(maxQueuedEvents);
+        private Thread thread;
+        private boolean finished;
+
+        private Subscriber(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void disconnect() {
+            queue.clear();
+
+            if (!finished) {
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Called by the stream thread before it goes back to the executor,
+         * so a late disconnect cannot interrupt its next task.
+         */
+        private synchronized void finish() {
+            finished = true;
+            Thread.interrupted();
+        }
+    }
+
+    private static void addFetched(Map<String, ? extends Quote> quotes, ArrayList<Quote> all) {
+        for (Quote quote : quotes.values()) {
+            if (quote.getVersion() > 0) {
+                all.add(quote);
+            }
+        }
+    }
+}
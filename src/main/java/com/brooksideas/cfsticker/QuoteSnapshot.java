@@ -0,0 +1,46 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copy of all quotes at the end of a refresh.
+ * Snapshots are never modified after they are published.
+ */
+public class QuoteSnapshot {
+    private final long timestamp;
+    private final TreeMap<String, CryptoQuote> cryptoQuotes;
+    private final TreeMap<String, FiatQuote> fiatQuotes;
+    private final TreeMap<String, StockQuote> stockQuotes;
+
+    public QuoteSnapshot(Map<String, CryptoQuote> cryptos, Map<String, FiatQuote> fiats, Map<String, StockQuote> stocks) {
+        this(System.currentTimeMillis(), cryptos, fiats, stocks);
+    }
+
+    public QuoteSnapshot(long timestamp, Map<String, CryptoQuote> cryptos, Map<String, FiatQuote> fiats, Map<String, StockQuote> stocks) {
+        this.timestamp = timestamp;
+        cryptoQuotes = new TreeMap<String, CryptoQuote>();
+        fiatQuotes = new TreeMap<String, FiatQuote>();
+        stockQuotes = new TreeMap<String, StockQuote>();
+
+        for (Map.Entry<String, CryptoQuote> entry : cryptos.entrySet()) {
+            cryptoQuotes.put(entry.getKey(), new CryptoQuote(entry.getValue()));
+        }
+
+        for (Map.Entry<String, FiatQuote> entry : fiats.entrySet()) {
+            fiatQuotes.put(entry.getKey(), new FiatQuote(entry.getValue()));
+        }
+
+        for (Map.Entry<String, StockQuote> entry : stocks.entrySet()) {
+            stockQuotes.put(entry.getKey(), new StockQuote(entry.getValue()));
+        }
+    }
+
+    public long getTimestamp() { return timestamp; }
+
+    public TreeMap<String, CryptoQuote> getCryptoQuotes() { return cryptoQuotes; }
+
+    public TreeMap<String, FiatQuote> getFiatQuotes() { return fiatQuotes; }
+
+    public TreeMap<String, StockQuote> getStockQuotes() { return stockQuotes; }
+}
@@ -0,0 +1,41 @@
+package com.brooksideas.cfsticker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Last version seen of each quote, used by the snapshot consumers that only
+ * pass on the quotes changed since the previous snapshot.
+ */
+public class QuoteVersions {
+    private HashMap<String, Long> cryptoVersions = new HashMap<String, Long>();
+    private HashMap<String, Long> fiatVersions = new HashMap<String, Long>();
+    private HashMap<String, Long> stockVersions = new HashMap<String, Long>();
+
+    /**
+     * Returns the fetched quotes whose version changed since the last call,
+     * cryptos first, then fiats and stocks, and remembers their versions.
+     */
+    public ArrayList<Quote> changed(QuoteSnapshot snapshot) {
+        ArrayList<Quote> quotes = new ArrayList<Quote>();
+        changed(snapshot.getCryptoQuotes(), cryptoVersions, quotes);
+        changed(snapshot.getFiatQuotes(), fiatVersions, quotes);
+        changed(snapshot.getStockQuotes(), stockVersions, quotes);
+        return quotes;
+    }
+
+    private static void changed(Map<String, ? extends Quote> quotes, HashMap<String, Long> versions, ArrayList<Quote> changed) {
+        for (Quote quote : quotes.values()) {
+            if (quote.getVersion() == 0) {
+                continue;
+            }
+
+            Long version = versions.put(quote.getSymbol(), quote.getVersion());
+
+            if (version == null || version.longValue() != quote.getVersion()) {
+                changed.add(quote);
+            }
+        }
+    }
+}
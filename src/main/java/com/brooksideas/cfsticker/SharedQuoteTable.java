@@ -0,0 +1,253 @@
+package com.brooksideas.cfsticker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quote table in a memory-mapped file shared by all ticker instances of a
+ * user, so only one of them fetches from the providers.
+ *
+ * The instance holding the lock file is the leader. It fetches and writes
+ * every refresh to the table. The other instances read the table. When the
+ * leader exits the operating system releases its lock and the next
+ * instance to try the lock becomes the leader.
+ *
+ * Writes are guarded by a sequence lock: the leader makes the sequence odd,
+ * writes the records and makes it even again. A reader copies the records
+ * and retries if the sequence was odd or changed meanwhile, so it never
+ * sees a half-written table.
+ *
+ * Header, 64 bytes:
+ *
+ *   0  int  magic
+ *   4  int  capacity in records
+ *   8  long sequence
+ *  16  long snapshot timestamp
+ *  24  int  record count
+ *
+ * Records, 64 bytes each:
+ *
+ *   0  byte   quote type, 1 crypto, 2 fiat, 3 stock
+ *   1  byte   symbol length
+ *   2  byte[] symbol, ASCII, at most 14 bytes
+ *  16  double price
+ *  24  double market cap
+ *  32  double 24 hour percent change
+ *  40  int    crypto rank
+ *  44  byte   1 if stale
+ */
+public class SharedQuoteTable implements Closeable {
+    public static final int defaultCapacity = 16384;
+    private static final int magic = 0x43465351;
+    private static final int headerSize = 64;
+    private static final int recordSize = 64;
+    private static final int maxSymbolLength = 14;
+    private static final int sequenceOffset = 8;
+    private static final int maxReadAttempts = 1000;
+    private static final VarHandle longs = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private MappedByteBuffer table;
+    private int capacity;
+    private byte[] copy;
+
+    /**
+     * Opens or creates the table file and its lock file.
+     */
+    public SharedQuoteTable(Path file, int capacity) throws IOException {
+        this.capacity = capacity;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        long size = headerSize + (long)capacity * recordSize;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        table.order(ByteOrder.nativeOrder());
+        lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        copy = new byte[capacity * recordSize];
+    }
+
+    /**
+     * Default table location in the temporary directory, per user.
+     */
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "cfsticker-" + System.getProperty("user.name"), "quotes.shm");
+    }
+
+    /**
+     * Returns true if this instance is the leader, taking the lock if no
+     * other instance holds it.
+     */
+    public synchronized boolean tryLead() {
+        if (lock == null) {
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException | IOException e) {
+                // Held by another table in this JVM
+                lock = null;
+            }
+        }
+
+        return lock != null;
+    }
+
+    public synchronized boolean isLeader() {
+        return lock != null;
+    }
+
+    public long getSequence() {
+        return (long)longs.getAcquire(table, sequenceOffset);
+    }
+
+    /**
+     * Writes all fetched snapshot quotes, up to the capacity. Only the
+     * leader may write.
+     */
+    public synchronized void write(QuoteSnapshot snapshot) {
+        if (lock == null) {
+            throw new IllegalStateException("Only the leader writes the shared quote table");
+        }
+
+        long sequence = (long)longs.getOpaque(table, sequenceOffset);
+
+        if ((sequence & 1) != 0) {
+            // A previous leader died while writing
+            sequence++;
+        }
+
+        longs.setOpaque(table, sequenceOffset, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        int count = 0;
+        count = writeRecords(snapshot.getCryptoQuotes(), QuoteLog.cryptoType, count);
+        count = writeRecords(snapshot.getFiatQuotes(), QuoteLog.fiatType, count);
+        count = writeRecords(snapshot.getStockQuotes(), QuoteLog.stockType, count);
+        table.putInt(0, magic);
+        table.putInt(4, capacity);
+        table.putLong(16, snapshot.getTimestamp());
+        table.putInt(24, count);
+
+        longs.setRelease(table, sequenceOffset, sequence + 2);
+    }
+
+    /**
+     * Reads a consistent copy of the table, or returns null if the table
+     * was never written or stayed busy.
+     */
+    public QuoteSnapshot read() {
+        for (int attempt = 0; attempt < maxReadAttempts; attempt++) {
+            long before = (long)longs.getAcquire(table, sequenceOffset);
+
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (table.getInt(0) != magic) {
+                return null;
+            }
+
+            long timestamp = table.getLong(16);
+            int count = Math.min(table.getInt(24), capacity);
+            table.get(headerSize, copy, 0, count * recordSize);
+            VarHandle.loadLoadFence();
+
+            if ((long)longs.getAcquire(table, sequenceOffset) == before) {
+                return parse(timestamp, count);
+            }
+        }
+
+        return null;
+    }
+
+    public synchronized void close() throws IOException {
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+
+        lockChannel.close();
+        channel.close();
+    }
+
+    private int writeRecords(Map<String, ? extends Quote> quotes, byte type, int count) {
+        for (Quote quote : quotes.values()) {
+            if (count >= capacity) {
+                return count;
+            }
+
+            if (quote.getVersion() == 0) {
+                continue;
+            }
+
+            int offset = headerSize + count * recordSize;
+            String symbol = quote.getSymbol();
+            int length = Math.min(symbol.length(), maxSymbolLength);
+            table.put(offset, type);
+            table.put(offset + 1, (byte)length);
+
+            for (int i = 0; i < maxSymbolLength; i++) {
+                table.put(offset + 2 + i, i < length ? (byte)symbol.charAt(i) : 0);
+            }
+
+            table.putDouble(offset + 16, quote.getPrice());
+            table.putDouble(offset + 24, quote.getMarketCap());
+            table.putDouble(offset + 32, quote.getPercentChange24h());
+            table.putInt(offset + 40, quote instanceof CryptoQuote ? ((CryptoQuote)quote).getRank() : 0);
+            table.put(offset + 44, (byte)(quote.isStale() ? 1 : 0));
+            count++;
+        }
+
+        return count;
+    }
+
+    private QuoteSnapshot parse(long timestamp, int count) {
+        TreeMap<String, CryptoQuote> cryptos = new TreeMap<String, CryptoQuote>();
+        TreeMap<String, FiatQuote> fiats = new TreeMap<String, FiatQuote>();
+        TreeMap<String, StockQuote> stocks = new TreeMap<String, StockQuote>();
+        ByteBuffer records = ByteBuffer.wrap(copy).order(ByteOrder.nativeOrder());
+
+        for (int i = 0; i < count; i++) {
+            int offset = i * recordSize;
+            byte type = records.get(offset);
+            int length = Math.min(records.get(offset + 1), maxSymbolLength);
+            String symbol = new String(copy, offset + 2, length, StandardCharsets.US_ASCII);
+            Quote quote;
+
+            if (type == QuoteLog.cryptoType) {
+                CryptoQuote cryptoQuote = new CryptoQuote(symbol);
+                cryptoQuote.setRank(records.getInt(offset + 40));
+                cryptos.put(symbol, cryptoQuote);
+                quote = cryptoQuote;
+            } else if (type == QuoteLog.fiatType) {
+                quote = new FiatQuote(symbol);
+                fiats.put(symbol, (FiatQuote)quote);
+            } else {
+                quote = new StockQuote(symbol);
+                stocks.put(symbol, (StockQuote)quote);
+            }
+
+            quote.setPrice(records.getDouble(offset + 16));
+            quote.setMarketCap(records.getDouble(offset + 24));
+            quote.setPercentChange24h(records.getDouble(offset + 32));
+            quote.setStale(records.get(offset + 44) != 0);
+        }
+
+        return new QuoteSnapshot(timestamp, cryptos, fiats, stocks);
+    }
+}
@@ -0,0 +1,17 @@
+package com.brooksideas.cfsticker;
+
+/**
+ * Latest stock quote
+ */
+public class StockQuote extends Quote {
+    public StockQuote() {
+    }
+
+    public StockQuote(String symbol) {
+        super(symbol);
+    }
+
+    public StockQuote(StockQuote x) {
+        super(x);
+    }
+}
@@ -0,0 +1,117 @@
+package com.brooksideas.cfsticker;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline quotes for any number of symbols of any type.
+ *
+ * Each symbol starts at a price and market cap derived from its name and
+ * then follows a geometric random walk, moving a little on every request.
+ * The 24 hour change is measured from the price at the start of the
+ * current day. No network is used, so the rest of the pipeline can be
+ * benchmarked and load tested with thousands of symbols.
+ */
+public class SyntheticQuoteProvider implements QuoteProvider {
+    private static final long dayMillis = 24 * 60 * 60 * 1000L;
+    // Standard deviation of the log price change per request
+    private static final double volatility = 0.005;
+
+    private ConcurrentHashMap<String, Walk> cryptoWalks = new ConcurrentHashMap<String, Walk>();
+    private ConcurrentHashMap<String, Walk> fiatWalks = new ConcurrentHashMap<String, Walk>();
+    private ConcurrentHashMap<String, Walk> stockWalks = new ConcurrentHashMap<String, Walk>();
+
+    public String getName() {
+        return "synthetic";
+    }
+
+    public void init(ProviderContext context) {
+    }
+
+    @Override
+    public void getCryptoQuotes(Map<String, CryptoQuote> quotes) {
+        for (CryptoQuote quote : quotes.values()) {
+            Walk walk = step(cryptoWalks, quote.getSymbol());
+            quote.setName(quote.getSymbol());
+            quote.setRank(walk.rank);
+            quote.setPrice(QuoteParser.roundPrice(walk.price));
+            quote.setMarketCap(Math.round(walk.price * walk.supply / 10000.0) / 100.0);
+            quote.setPercentChange24h(walk.percentChange24h());
+        }
+    }
+
+    @Override
+    public void getFiatQuotes(Map<String, FiatQuote> quotes) {
+        for (FiatQuote quote : quotes.values()) {
+            Walk walk = step(fiatWalks, quote.getSymbol());
+            quote.setName("");
+            quote.setPrice(QuoteParser.roundPrice(walk.price));
+        }
+    }
+
+    @Override
+    public void getStockQuotes(Map<String, StockQuote> quotes) {
+        for (StockQuote quote : quotes.values()) {
+            Walk walk = step(stockWalks, quote.getSymbol());
+            quote.setName(quote.getSymbol());
+            quote.setPrice(QuoteParser.roundPrice(walk.price));
+            quote.setMarketCap(Math.round(walk.price * walk.supply / 1000000.0));
+            quote.setPercentChange24h(walk.percentChange24h());
+        }
+    }
+
+    /**
+     * Returns count generated symbols with the prefix, for load testing.
+     */
+    public static ArrayList<String> symbols(String prefix, int count) {
+        ArrayList<String> symbols = new ArrayList<String>(count);
+
+        for (int i = 0; i < count; i++) {
+            symbols.add(prefix + i);
+        }
+
+        return symbols;
+    }
+
+    private static Walk step(ConcurrentHashMap<String, Walk> walks, String symbol) {
+        Walk walk = walks.computeIfAbsent(symbol, Walk::new);
+        long now = System.currentTimeMillis();
+
+        // Walks of one type are only stepped by one request at a time
+        if (now - walk.openTime >= dayMillis) {
+            walk.open = walk.price;
+            walk.openTime = now;
+        }
+
+        walk.price *= Math.exp(volatility * ThreadLocalRandom.current().nextGaussian());
+        return walk;
+    }
+
+    private static class Walk {
+        private int rank;
+        private double supply;
+        private double price;
+        private double open;
+        private long openTime;
+
+        private Walk(String symbol) {
+            // The same symbol always starts from the same point
+            Random random = new Random(symbol.hashCode());
+            rank = 1 + random.nextInt(5000);
+            // Prices from about 0.05 to 20000 cover every rounding rule
+            price = Math.exp(-3.0 + 13.0 * random.nextDouble());
+            // Market caps from 10m to 1t
+            double marketCap = Math.exp(Math.log(1.0e7) + (Math.log(1.0e12) - Math.log(1.0e7)) * random.nextDouble());
+            supply = marketCap / price;
+            open = price;
+            openTime = System.currentTimeMillis();
+        }
+
+        private double percentChange24h() {
+            return (price / open - 1.0) * 100.0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.brooksideas.cfsticker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a ticker update or window update on the Event
+ * Dispatch Thread.
+ */
+@Name("com.brooksideas.cfsticker.TickerRender")
+@Label("Ticker Render")
+@Category({ "CryptoFiatStockTicker", "Swing" })
+@Description("Ticker or window update on the Event Dispatch Thread")
+public class TickerRenderEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Ticker Count")
+    int tickerCount;
+
+    @Label("Changed Count")
+    @Description("Tickers with a new quote")
+    int changedCount;
+
+    public void commit(String phase, int tickerCount, int changedCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.phase = phase;
+            this.tickerCount = tickerCount;
+            this.changedCount = changedCount;
+            commit();
+        }
+    }
+}
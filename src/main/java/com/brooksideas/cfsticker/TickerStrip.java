@@ -0,0 +1,383 @@
+package com.brooksideas.cfsticker;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import javax.swing.*;
+
+/**
+ * Row of ticker cells painted by one lightweight component.
+ *
+ * Each cell shows the symbol (with the rank for cryptos), the price and the
+ * market cap, coloured by the 24 hour change. Text is kept in char arrays
+ * and drawn directly with cached fonts and metrics, so no labels or html
+ * views are created. Only cells whose text or colour changed are repainted,
+ * with one repaint request per batch of updates. Stale quotes are shown
+ * in grey.
+ *
+ * The strip is Scrollable and is meant to be shown in a JScrollPane, where
+ * only the cells inside the viewport are painted, so very long watchlists
+ * cost the same to paint as a window full of tickers.
+ */
+@SuppressWarnings("serial")
+public class TickerStrip extends JComponent implements Scrollable {
+    public static final int cellWidth = 65;
+    public static final int cellHeight = 72;
+
+    private ArrayList<Cell> cells = new ArrayList<Cell>();
+    // Formatting buffer shared by the cells, large enough for any value
+    private char[] scratch = new char[QuoteFormatter.maxLength];
+    private HashMap<String, Cell> cellsBySymbol = new HashMap<String, Cell>();
+    private int changedFirst = Integer.MAX_VALUE;
+    private int changedLast = -1;
+    private boolean hasQuotes;
+    private Runnable firstQuotesPaintedListener;
+    private Color upColor;
+    private Color downColor;
+    private Font symbolFont;
+    private Font rankFont;
+    private Font priceFont;
+    private Font marketCapFont;
+    private FontMetrics symbolMetrics;
+    private FontMetrics rankMetrics;
+    private FontMetrics priceMetrics;
+    private FontMetrics marketCapMetrics;
+
+    public TickerStrip(Color upColor, Color downColor) {
+        this.upColor = upColor;
+        this.downColor = downColor;
+        setOpaque(true);
+        setBackground(Color.black);
+        setForeground(Color.white);
+        setFont(UIManager.getFont("Label.font"));
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+
+        if (font == null) {
+            return;
+        }
+
+        // Same relative sizes as the old html labels
+        float size = font.getSize2D();
+        symbolFont = font.deriveFont(Font.BOLD);
+        rankFont = font.deriveFont(Font.PLAIN, size * 0.75f);
+        priceFont = font.deriveFont(Font.BOLD, size * 1.3f);
+        marketCapFont = font.deriveFont(Font.PLAIN, size * 0.8f);
+        symbolMetrics = getFontMetrics(symbolFont);
+        rankMetrics = getFontMetrics(rankFont);
+        priceMetrics = getFontMetrics(priceFont);
+        marketCapMetrics = getFontMetrics(marketCapFont);
+        repaint();
+    }
+
+    /**
+     * Sets a listener run once, on the first paint after a quote was shown.
+     */
+    public void setFirstQuotesPaintedListener(Runnable listener) {
+        firstQuotesPaintedListener = listener;
+    }
+
+    public int getTickerCount() {
+        return cells.size();
+    }
+
+    /**
+     * Adds a ticker cell at the end showing zero until its first quote.
+     */
+    public void addTicker(String symbol) {
+        if (cellsBySymbol.containsKey(symbol)) {
+            return;
+        }
+
+        Cell cell = new Cell(symbol, scratch);
+        cell.index = cells.size();
+        cells.add(cell);
+        cellsBySymbol.put(symbol, cell);
+        revalidate();
+        repaint();
+    }
+
+    public void removeTicker(String symbol) {
+        Cell cell = cellsBySymbol.remove(symbol);
+
+        if (cell != null) {
+            cells.remove(cell.index);
+
+            for (int i = cell.index; i < cells.size(); i++) {
+                cells.get(i).index = i;
+            }
+
+            revalidate();
+            repaint();
+        }
+    }
+
+    /**
+     * Shows the quote in the symbol's cell and marks the cell for the next
+     * repaintChanged if anything shown changed. Fiat quotes show - for the
+     * market cap.
+     */
+    public void setQuote(String symbol, Quote quote) {
+        Cell cell = cellsBySymbol.get(symbol);
+
+        if (cell == null) {
+            System.err.println("Could not find ticker for symbol: " + symbol);
+            return;
+        }
+
+        boolean changed = false;
+        int rank = 0;
+
+        if (quote instanceof CryptoQuote) {
+            rank = ((CryptoQuote)quote).getRank();
+        }
+
+        if (rank != cell.rank) {
+            cell.rank = rank;
+            cell.rankLength = rank > 0 ? QuoteFormatter.writeFixed(rank, 0, cell.rankText, 0) : 0;
+            changed = true;
+        }
+
+        changed |= cell.setPrice(quote.getPrice(), scratch);
+
+        if (quote instanceof FiatQuote) {
+            changed |= cell.setMarketCapDash();
+        } else {
+            changed |= cell.setMarketCap(quote.getMarketCap(), scratch);
+        }
+
+        Color color = getForeground();
+
+        if (quote.getVersion() > 0) {
+            hasQuotes = true;
+        }
+
+        if (quote.isStale()) {
+            color = Color.gray;
+        } else if (quote.getPercentChange24h() > 0.5) {
+            color = upColor;
+        } else if (quote.getPercentChange24h() < -0.5) {
+            color = downColor;
+        }
+
+        if (!color.equals(cell.color)) {
+            cell.color = color;
+            changed = true;
+        }
+
+        if (changed) {
+            changedFirst = Math.min(changedFirst, cell.index);
+            changedLast = Math.max(changedLast, cell.index);
+        }
+    }
+
+    /**
+     * Requests one repaint covering every cell changed since the last call.
+     */
+    public void repaintChanged() {
+        if (changedLast < 0) {
+            return;
+        }
+
+        int x = changedFirst * cellWidth;
+        int width = (changedLast - changedFirst + 1) * cellWidth;
+        changedFirst = Integer.MAX_VALUE;
+        changedLast = -1;
+        repaint(x, 0, width, getHeight());
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+
+        return new Dimension(cells.size() * cellWidth, cellHeight);
+    }
+
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    /**
+     * Scrolls by one cell, aligning the cell edge with the viewport edge.
+     */
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return 1;
+        }
+
+        int offset = visibleRect.x % cellWidth;
+
+        if (direction < 0) {
+            return offset == 0 ? cellWidth : offset;
+        }
+
+        return cellWidth - offset;
+    }
+
+    /**
+     * Scrolls by the whole cells that fit in the viewport.
+     */
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return visibleRect.height;
+        }
+
+        return Math.max(cellWidth, (visibleRect.width / cellWidth) * cellWidth);
+    }
+
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    public boolean getScrollableTracksViewportHeight() {
+        return true;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        if (g instanceof Graphics2D) {
+            ((Graphics2D)g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+
+        // Only the cells inside the clip are painted
+        int first = Math.max(0, clip.x / cellWidth);
+        int last = Math.min(cells.size() - 1, (clip.x + clip.width - 1) / cellWidth);
+        int top = Math.max(0, (getHeight() - cellHeight) / 2);
+
+        for (int i = first; i <= last; i++) {
+            paintCell(g, cells.get(i), i * cellWidth, top);
+        }
+
+        if (hasQuotes && firstQuotesPaintedListener != null) {
+            Runnable listener = firstQuotesPaintedListener;
+            firstQuotesPaintedListener = null;
+            listener.run();
+        }
+    }
+
+    private void paintCell(Graphics g, Cell cell, int x, int y) {
+        int center = x + cellWidth / 2;
+
+        // Symbol with the rank as a superscript
+        int symbolWidth = symbolMetrics.charsWidth(cell.symbol, 0, cell.symbol.length);
+        int rankWidth = cell.rankLength > 0 ? rankMetrics.charsWidth(cell.rankText, 0, cell.rankLength) : 0;
+        int tx = center - (symbolWidth + rankWidth) / 2;
+        int baseline = y + 5 + symbolMetrics.getAscent();
+        g.setColor(getForeground());
+        g.setFont(symbolFont);
+        g.drawChars(cell.symbol, 0, cell.symbol.length, tx, baseline);
+
+        if (cell.rankLength > 0) {
+            g.setFont(rankFont);
+            g.drawChars(cell.rankText, 0, cell.rankLength, tx + symbolWidth, baseline - symbolMetrics.getAscent() / 2);
+        }
+
+        // Price and market cap
+        baseline += symbolMetrics.getDescent() + 10 + priceMetrics.getAscent();
+        g.setColor(cell.color);
+        g.setFont(priceFont);
+        tx = center - priceMetrics.charsWidth(cell.priceText, 0, cell.priceLength) / 2;
+        g.drawChars(cell.priceText, 0, cell.priceLength, tx, baseline);
+
+        baseline += priceMetrics.getDescent() + marketCapMetrics.getAscent();
+        g.setFont(marketCapFont);
+        tx = center - marketCapMetrics.charsWidth(cell.marketCapText, 0, cell.marketCapLength) / 2;
+        g.drawChars(cell.marketCapText, 0, cell.marketCapLength, tx, baseline);
+    }
+
+    private static class Cell {
+        private int index;
+        private char[] symbol;
+        private int rank;
+        private char[] rankText = new char[12];
+        private int rankLength;
+        private char[] priceText = new char[32];
+        private int priceLength;
+        private char[] marketCapText = new char[32];
+        private int marketCapLength;
+        private Color color = Color.white;
+
+        private Cell(String symbol, char[] scratch) {
+            this.symbol = symbol.toCharArray();
+            setPrice(0.0, scratch);
+            setMarketCap(0.0, scratch);
+            marketCapText[0] = '0';
+            marketCapText[1] = 'm';
+            marketCapLength = 2;
+        }
+
+        /**
+         * Formats the price and returns true if the text changed.
+         */
+        private boolean setPrice(double price, char[] scratch) {
+            int length = QuoteFormatter.writePrice(price, scratch, 0);
+
+            if (same(scratch, length, priceText, priceLength)) {
+                return false;
+            }
+
+            // Only junk values far beyond any real quote are longer
+            if (length > priceText.length) {
+                priceText = new char[length];
+            }
+
+            System.arraycopy(scratch, 0, priceText, 0, length);
+            priceLength = length;
+            return true;
+        }
+
+        private boolean setMarketCap(double marketCap, char[] scratch) {
+            int length = QuoteFormatter.writeMarketCap(marketCap, scratch, 0);
+
+            if (same(scratch, length, marketCapText, marketCapLength)) {
+                return false;
+            }
+
+            if (length > marketCapText.length) {
+                marketCapText = new char[length];
+            }
+
+            System.arraycopy(scratch, 0, marketCapText, 0, length);
+            marketCapLength = length;
+            return true;
+        }
+
+        private boolean setMarketCapDash() {
+            if (marketCapLength == 1 && marketCapText[0] == '-') {
+                return false;
+            }
+
+            marketCapText[0] = '-';
+            marketCapLength = 1;
+            return true;
+        }
+
+        private static boolean same(char[] a, int aLength, char[] b, int bLength) {
+            if (aLength != bLength) {
+                return false;
+            }
+
+            for (int i = 0; i < aLength; i++) {
+                if (a[i] != b[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
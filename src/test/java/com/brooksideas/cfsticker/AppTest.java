@@ -1,5 +1,7 @@
 package com.brooksideas.cfsticker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -35,4 +37,19 @@ public class AppTest
     {
         assertTrue( true );
     }
+
+    /**
+     * Symbols are split into lists by count and by length.
+     */
+    public void testJoinSymbols()
+    {
+        ArrayList<String> lists = QuoteEngine.joinSymbols( Arrays.asList( "ADA", "BTC", "ETH", "SOL", "XRP" ), 2, 100 );
+        assertEquals( Arrays.asList( "ADA,BTC", "ETH,SOL", "XRP" ), lists );
+
+        lists = QuoteEngine.joinSymbols( Arrays.asList( "ADA", "BTC", "ETH" ), 100, 7 );
+        assertEquals( Arrays.asList( "ADA,BTC", "ETH" ), lists );
+
+        lists = QuoteEngine.joinSymbols( new ArrayList<String>(), 100, 100 );
+        assertTrue( lists.isEmpty() );
+    }
 }
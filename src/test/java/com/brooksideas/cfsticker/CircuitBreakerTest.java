@@ -0,0 +1,59 @@
+package com.brooksideas.cfsticker;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the provider circuit breaker.
+ */
+public class CircuitBreakerTest
+    extends TestCase
+{
+    public CircuitBreakerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CircuitBreakerTest.class );
+    }
+
+    public void testOpensAfterConsecutiveFailures()
+    {
+        CircuitBreaker breaker = new CircuitBreaker( "test", 2, 60000, 600000 );
+        assertTrue( breaker.allowRequest() );
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertEquals( CircuitBreaker.State.CLOSED, breaker.getState() );
+        assertTrue( breaker.allowRequest() );
+
+        breaker.recordFailure();
+        assertEquals( CircuitBreaker.State.OPEN, breaker.getState() );
+        assertFalse( breaker.allowRequest() );
+    }
+
+    public void testHalfOpenProbe() throws Exception
+    {
+        CircuitBreaker breaker = new CircuitBreaker( "test", 1, 20, 1000 );
+        breaker.recordFailure();
+        assertFalse( breaker.allowRequest() );
+
+        // At most the base delay
+        Thread.sleep( 30 );
+        assertTrue( breaker.allowRequest() );
+        assertEquals( CircuitBreaker.State.HALF_OPEN, breaker.getState() );
+        assertFalse( breaker.allowRequest() );
+
+        // The next delay is between 20 and 40 ms
+        breaker.recordFailure();
+        assertEquals( CircuitBreaker.State.OPEN, breaker.getState() );
+        Thread.sleep( 50 );
+        assertTrue( breaker.allowRequest() );
+        breaker.recordSuccess();
+        assertEquals( CircuitBreaker.State.CLOSED, breaker.getState() );
+        assertTrue( breaker.allowRequest() );
+    }
+}
@@ -0,0 +1,81 @@
+package com.brooksideas.cfsticker;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the latency histogram.
+ */
+public class LatencyHistogramTest
+    extends TestCase
+{
+    public LatencyHistogramTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( LatencyHistogramTest.class );
+    }
+
+    public void testBuckets()
+    {
+        for ( long micros = 0; micros < 1000000; micros += 7 )
+        {
+            int bucket = LatencyHistogram.bucket( micros );
+            assertTrue( micros <= LatencyHistogram.upperMicros( bucket ) );
+            assertTrue( bucket == 0 || micros > LatencyHistogram.upperMicros( bucket - 1 ) );
+        }
+
+        assertTrue( LatencyHistogram.bucket( Long.MAX_VALUE / 1000 ) < 512 );
+    }
+
+    public void testPercentiles()
+    {
+        LatencyHistogram latency = new LatencyHistogram( "test" );
+        assertEquals( 0.0, latency.getP99Millis(), 0.0 );
+
+        // 1 to 100 ms
+        for ( int i = 1; i <= 100; i++ )
+        {
+            latency.record( i * 1000000L );
+        }
+
+        assertEquals( 100, latency.getCount() );
+        assertEquals( 50.5, latency.getMeanMillis(), 0.001 );
+        assertEquals( 100.0, latency.getMaxMillis(), 0.0 );
+        assertEquals( 50.0, latency.getP50Millis(), 50.0 * 0.125 );
+        assertEquals( 90.0, latency.getP90Millis(), 90.0 * 0.125 );
+        assertTrue( latency.getP99Millis() <= 100.0 );
+        assertTrue( latency.getP99Millis() >= 99.0 * 0.875 );
+
+        latency.reset();
+        assertEquals( 0, latency.getCount() );
+        assertEquals( 0.0, latency.getP99Millis(), 0.0 );
+    }
+
+    public void testRecentRequestLatency()
+    {
+        ProviderMetrics metrics = new ProviderMetrics( "test", new LatencyHistogram( "request" ), new LatencyHistogram( "parse" ) );
+
+        for ( int i = 0; i < 2 * ProviderMetrics.recentRequests; i++ )
+        {
+            metrics.recordResponse( System.nanoTime() - 200000000L );
+        }
+
+        assertEquals( 200.0, metrics.getRecentPercentileMillis( 0.5 ), 200.0 * 0.125 );
+
+        // The provider got faster, the older requests age out
+        for ( int i = 0; i < 2 * ProviderMetrics.recentRequests; i++ )
+        {
+            metrics.recordResponse( System.nanoTime() - 10000000L );
+        }
+
+        assertTrue( metrics.getRecentRequestCount() >= ProviderMetrics.recentRequests );
+        assertTrue( metrics.getRecentRequestCount() <= 2 * ProviderMetrics.recentRequests );
+        assertEquals( 10.0, metrics.getRecentPercentileMillis( 0.9 ), 10.0 * 0.5 );
+        assertTrue( metrics.getRequestLatency().getP90Millis() > 100.0 );
+    }
+}
@@ -0,0 +1,113 @@
+package com.brooksideas.cfsticker;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the per provider request limit.
+ */
+public class ProviderContextTest
+    extends TestCase
+{
+    public ProviderContextTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ProviderContextTest.class );
+    }
+
+    public void testQueuedRequestsHoldNoThreads()
+    {
+        Config config = new Config();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor)Executors.newCachedThreadPool();
+        ProviderContext context = new ProviderContext( config, new ObjectMapper(), new HttpTransport( config ), executor, 2,
+            new Metrics().getProvider( "test" ) );
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            futures.add( context.submit( () -> {
+                maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+
+                try
+                {
+                    Thread.sleep( 20 );
+                }
+                catch ( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                running.decrementAndGet();
+            } ) );
+        }
+
+        ProviderContext.await( futures );
+        executor.shutdown();
+
+        assertTrue( maxRunning.get() <= 2 );
+        assertTrue( "Pool grew to " + executor.getLargestPoolSize(), executor.getLargestPoolSize() < 10 );
+    }
+
+    public void testCancelledRequestsKeepPermits() throws Exception
+    {
+        Config config = new Config();
+        ProviderContext context = new ProviderContext( config, new ObjectMapper(), new HttpTransport( config ), Executors.newCachedThreadPool(), 1,
+            new Metrics().getProvider( "test" ) );
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch( 1 );
+
+        // Ignores the interrupt, like a request parsing its response
+        Future<?> first = context.submit( () -> {
+            maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+            started.countDown();
+            long end = System.nanoTime() + 200000000L;
+
+            while ( System.nanoTime() < end )
+            {
+                Thread.yield();
+            }
+
+            running.decrementAndGet();
+        } );
+
+        started.await();
+        first.cancel( true );
+        Future<?> second = context.submit( () -> maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max ) );
+        second.get();
+
+        assertEquals( 1, maxRunning.get() );
+        assertTrue( ( (FetchTask) first ).hasExited() );
+
+        // Interrupted while waiting for a permit
+        Future<?> third = context.submit( () -> {
+            try
+            {
+                Thread.sleep( 200 );
+            }
+            catch ( InterruptedException ie )
+            {
+                Thread.currentThread().interrupt();
+            }
+        } );
+        Thread.currentThread().interrupt();
+        Future<?> fourth = context.submit( () -> { } );
+        assertTrue( Thread.interrupted() );
+        assertTrue( fourth.isCancelled() );
+        third.get();
+    }
+}
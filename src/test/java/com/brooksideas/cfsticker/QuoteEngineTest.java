@@ -0,0 +1,662 @@
+package com.brooksideas.cfsticker;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.ArrayList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Quote engine refreshes against the stub provider server.
+ */
+public class QuoteEngineTest
+    extends TestCase
+{
+    private StubProviderServer stub;
+    private Config config;
+    private QuoteEngine engine;
+    private QuoteSnapshot snapshot;
+
+    public QuoteEngineTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteEngineTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        stub = new StubProviderServer();
+        stub.start();
+
+        config = stub.createConfig();
+        config.setCryptos( new ArrayList<String>( Arrays.asList( "ADA", "BTC", "ETH" ) ) );
+        config.setFiats( new ArrayList<String>( Arrays.asList( "CAD", "EUR", "GBP" ) ) );
+        config.setStocks( new ArrayList<String>( Arrays.asList( "COIN", "QQQ" ) ) );
+        engine = new QuoteEngine( config, new ObjectMapper() );
+        engine.setQuoteListener( s -> snapshot = s );
+    }
+
+    protected void tearDown()
+    {
+        engine.stop();
+        stub.stop();
+    }
+
+    public void testRefresh()
+    {
+        engine.updateAll();
+
+        assertEquals( 3, snapshot.getCryptoQuotes().size() );
+        assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getRank() > 0 );
+        assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getStockQuotes().get( "QQQ" ).getPrice() > 0.0 );
+
+        // One cmc batch, two currconv pairs per request and one iex batch
+        assertEquals( 4, stub.getRequestCount() );
+    }
+
+    public void testGzipAndApiKeyHeader()
+    {
+        stub.setGzip( true );
+        engine.updateAll();
+
+        assertEquals( 4, stub.getGzipCount() );
+        assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getStockQuotes().get( "QQQ" ).getPrice() > 0.0 );
+        assertEquals( "stub", stub.getLastRequestHeader( StubProviderServer.cmcPath, "X-CMC_PRO_API_KEY" ) );
+        assertEquals( "gzip", stub.getLastRequestHeader( StubProviderServer.iexPath, "Accept-Encoding" ) );
+    }
+
+    public void testMissingCmcApiKey()
+    {
+        config.setCmcApiKey( null );
+        QuoteEngine keylessEngine = new QuoteEngine( config, new ObjectMapper() );
+        keylessEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            keylessEngine.updateAll();
+            assertEquals( 0.0, snapshot.getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+            assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+            assertEquals( 3, stub.getRequestCount() );
+        }
+        finally
+        {
+            keylessEngine.stop();
+        }
+    }
+
+    public void testMissingCurrconvApiKey()
+    {
+        config.setCcaApiKey( null );
+        QuoteEngine keylessEngine = new QuoteEngine( config, new ObjectMapper() );
+        keylessEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            keylessEngine.updateAll();
+            assertEquals( 0.0, snapshot.getFiatQuotes().get( "GBP" ).getPrice(), 0.0 );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+            assertEquals( 2, stub.getRequestCount() );
+        }
+        finally
+        {
+            keylessEngine.stop();
+        }
+    }
+
+    public void testMissingIexApiKey()
+    {
+        config.setIexApiKey( null );
+        QuoteEngine keylessEngine = new QuoteEngine( config, new ObjectMapper() );
+        keylessEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            keylessEngine.updateAll();
+            assertEquals( 0.0, snapshot.getStockQuotes().get( "QQQ" ).getPrice(), 0.0 );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+            assertEquals( 3, stub.getRequestCount() );
+        }
+        finally
+        {
+            keylessEngine.stop();
+        }
+    }
+
+    public void testTruncatedGzip()
+    {
+        stub.setGzip( true );
+        stub.setTruncateGzip( true );
+        engine.updateAll();
+        assertEquals( 0.0, snapshot.getStockQuotes().get( "QQQ" ).getPrice(), 0.0 );
+        assertEquals( Long.valueOf( 1 ), engine.getMetrics().getProvider( "iex" ).getErrorCounts().get( "EOFException" ) );
+
+        // The failed responses left the connections usable
+        stub.setTruncateGzip( false );
+        engine.updateAll();
+        assertTrue( snapshot.getStockQuotes().get( "QQQ" ).getPrice() > 0.0 );
+    }
+
+    public void testStalledBodyTimesOut()
+    {
+        config.setReadTimeoutSeconds( 1 );
+        QuoteEngine timeoutEngine = new QuoteEngine( config, new ObjectMapper() );
+        timeoutEngine.setQuoteListener( s -> snapshot = s );
+        stub.stallBodies( 5000 );
+
+        try
+        {
+            long start = System.nanoTime();
+            timeoutEngine.updateAll();
+            long millis = ( System.nanoTime() - start ) / 1000000;
+
+            assertTrue( "Refresh took " + millis + " ms", millis < 3000 );
+            assertEquals( 0.0, snapshot.getStockQuotes().get( "QQQ" ).getPrice(), 0.0 );
+            assertEquals( Long.valueOf( 1 ), timeoutEngine.getMetrics().getProvider( "iex" ).getErrorCounts().get( "HttpTimeoutException" ) );
+        }
+        finally
+        {
+            timeoutEngine.stop();
+        }
+    }
+
+    public void testBatchedCurrconvPairs()
+    {
+        config.setCcaMaxPairsPerRequest( 1 );
+        QuoteEngine pairEngine = new QuoteEngine( config, new ObjectMapper() );
+        pairEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            pairEngine.updateAll();
+        }
+        finally
+        {
+            pairEngine.stop();
+        }
+
+        // One cmc batch, one currconv pair per request and one iex batch
+        assertEquals( 5, stub.getRequestCount() );
+        assertTrue( snapshot.getFiatQuotes().get( "CAD" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+        assertEquals( Arrays.asList( "CAD_USD,EUR_USD", "GBP_USD" ),
+            QuoteEngine.joinSymbols( Arrays.asList( "CAD_USD", "EUR_USD", "GBP_USD" ), 2, 100 ) );
+        assertEquals( Arrays.asList( "CAD_USD", "EUR_USD" ),
+            QuoteEngine.joinSymbols( Arrays.asList( "CAD_USD", "EUR_USD" ), 2, 10 ) );
+    }
+
+    public void testProviderSelection()
+    {
+        config.setCryptoProvider( "synthetic" );
+        config.setFiatProvider( "synthetic" );
+        config.setStockProvider( "nosuchprovider" );
+        QuoteEngine selectedEngine = new QuoteEngine( config, new ObjectMapper() );
+        selectedEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            selectedEngine.updateAll();
+        }
+        finally
+        {
+            selectedEngine.stop();
+        }
+
+        // Synthetic crypto and fiat quotes, the unknown stock provider falls back to iex
+        assertEquals( 1, stub.getRequestCount() );
+        assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getFiatQuotes().get( "EUR" ).getPrice() > 0.0 );
+        assertTrue( snapshot.getStockQuotes().get( "QQQ" ).getPrice() > 0.0 );
+        assertNotNull( selectedEngine.getCircuitBreaker( "synthetic" ) );
+        assertNotNull( selectedEngine.getCircuitBreaker( "iex" ) );
+        assertNull( selectedEngine.getCircuitBreaker( "cmc" ) );
+    }
+
+    public void testErrorsKeepLastQuotes()
+    {
+        engine.updateAll();
+        double price = snapshot.getCryptoQuotes().get( "ETH" ).getPrice();
+
+        stub.setErrorRate( 1.0 );
+        stub.setErrorCode( 1002 );
+        engine.updateAll();
+        assertEquals( price, snapshot.getCryptoQuotes().get( "ETH" ).getPrice(), 0.0 );
+
+        stub.setErrorRate( 0.0 );
+        stub.setRateLimitRate( 1.0 );
+        engine.updateAll();
+        assertEquals( price, snapshot.getCryptoQuotes().get( "ETH" ).getPrice(), 0.0 );
+    }
+
+    public void testOpenCircuitServesStaleQuotes()
+    {
+        config.setCircuitBreakerFailures( 1 );
+        QuoteEngine breakingEngine = new QuoteEngine( config, new ObjectMapper() );
+        breakingEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            breakingEngine.updateAll();
+            double price = snapshot.getCryptoQuotes().get( "BTC" ).getPrice();
+            assertFalse( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+
+            stub.setErrorRate( 1.0 );
+            stub.setErrorCode( 1002 );
+            breakingEngine.updateAll();
+            assertEquals( CircuitBreaker.State.OPEN, breakingEngine.getCircuitBreaker( "cmc" ).getState() );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+            assertEquals( price, snapshot.getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+
+            // No requests while the breakers are open
+            int requests = stub.getRequestCount();
+            breakingEngine.updateAll();
+            assertEquals( requests, stub.getRequestCount() );
+            assertTrue( snapshot.getFiatQuotes().get( "EUR" ).isStale() );
+            assertTrue( snapshot.getStockQuotes().get( "QQQ" ).isStale() );
+        }
+        finally
+        {
+            breakingEngine.stop();
+        }
+    }
+
+    public void testMissingQuotesAreStale()
+    {
+        config.setCircuitBreakerFailures( 1 );
+        QuoteEngine partialEngine = new QuoteEngine( config, new ObjectMapper() );
+        partialEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            partialEngine.updateAll();
+            assertFalse( snapshot.getFiatQuotes().get( "GBP" ).isStale() );
+
+            // GBP is missing from both fiat responses
+            stub.setRecordedResponse( StubProviderServer.ccaPath, "{\"CAD_USD\":0.7312,\"EUR_USD\":1.16672}" );
+            partialEngine.updateAll();
+            assertTrue( snapshot.getFiatQuotes().get( "GBP" ).isStale() );
+            assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+            assertFalse( snapshot.getFiatQuotes().get( "EUR" ).isStale() );
+            assertEquals( 1.17, snapshot.getFiatQuotes().get( "EUR" ).getPrice(), 0.0 );
+            assertEquals( CircuitBreaker.State.CLOSED, partialEngine.getCircuitBreaker( "cca" ).getState() );
+
+            // Most quotes missing fails the fetch
+            stub.setRecordedResponse( StubProviderServer.ccaPath, "{\"EUR_USD\":1.16672}" );
+            partialEngine.updateAll();
+            assertFalse( snapshot.getFiatQuotes().get( "EUR" ).isStale() );
+            assertTrue( snapshot.getFiatQuotes().get( "CAD" ).isStale() );
+            assertEquals( CircuitBreaker.State.OPEN, partialEngine.getCircuitBreaker( "cca" ).getState() );
+        }
+        finally
+        {
+            partialEngine.stop();
+        }
+    }
+
+    public void testRefreshDeadline()
+    {
+        config.setRefreshDeadlineSeconds( 1 );
+        QuoteEngine deadlineEngine = new QuoteEngine( config, new ObjectMapper() );
+        deadlineEngine.setQuoteListener( s -> snapshot = s );
+        stub.setLatencyMillis( 5000 );
+
+        try
+        {
+            long start = System.nanoTime();
+            deadlineEngine.updateAll();
+            long millis = ( System.nanoTime() - start ) / 1000000;
+
+            assertTrue( "Refresh took " + millis + " ms", millis < 3000 );
+            assertEquals( 0.0, snapshot.getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+        }
+        finally
+        {
+            deadlineEngine.stop();
+        }
+    }
+
+    public void testDeadlineWaitsForCancelledFetch()
+    {
+        config.setRefreshDeadlineSeconds( 1 );
+        config.setCryptoProvider( "stalling" );
+        config.setCryptos( new ArrayList<String>( Arrays.asList( "ADA", "BTC" ) ) );
+        QuoteEngine deadlineEngine = new QuoteEngine( config, new ObjectMapper() );
+        deadlineEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            long start = System.nanoTime();
+            deadlineEngine.updateAll();
+            long millis = ( System.nanoTime() - start ) / 1000000;
+
+            // Published only after the cancelled fetch stopped writing quotes
+            assertTrue( "Refresh took " + millis + " ms", millis >= StallingQuoteProvider.stallMillis );
+            assertEquals( StallingQuoteProvider.price, snapshot.getCryptoQuotes().get( "ADA" ).getPrice(), 0.0 );
+            assertEquals( StallingQuoteProvider.price, snapshot.getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+            assertFalse( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+            assertTrue( snapshot.getFiatQuotes().get( "EUR" ).getPrice() > 0.0 );
+        }
+        finally
+        {
+            deadlineEngine.stop();
+        }
+    }
+
+    public void testHedgedRequests()
+    {
+        config.setHedgePercentile( 90 );
+        QuoteEngine hedgingEngine = new QuoteEngine( config, new ObjectMapper() );
+        hedgingEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            // Enough fast requests for a latency percentile
+            for ( int i = 0; i < 20; i++ )
+            {
+                hedgingEngine.updateAll();
+            }
+
+            // One cmc, two currconv and one iex request stall
+            Metrics metrics = hedgingEngine.getMetrics();
+            long hedges = hedgeCount( metrics );
+            stub.stallRequests( 4, 5000 );
+            long start = System.nanoTime();
+            hedgingEngine.updateAll();
+            long millis = ( System.nanoTime() - start ) / 1000000;
+
+            assertTrue( "Refresh took " + millis + " ms", millis < 3000 );
+            // A request that is not stalled can also pass the percentile
+            assertTrue( hedgeCount( metrics ) >= hedges + 4 );
+            assertEquals( 0, metrics.getProvider( "cmc" ).getErrorCount() );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+        }
+        finally
+        {
+            hedgingEngine.stop();
+        }
+    }
+
+    private static long hedgeCount( Metrics metrics )
+    {
+        return metrics.getProvider( "cmc" ).getHedgeCount()
+            + metrics.getProvider( "cca" ).getHedgeCount()
+            + metrics.getProvider( "iex" ).getHedgeCount();
+    }
+
+    public void testMetrics()
+    {
+        engine.updateAll();
+        stub.setErrorRate( 1.0 );
+        stub.setErrorCode( 1002 );
+        engine.updateAll();
+
+        ProviderMetrics cmc = engine.getMetrics().getProvider( "cmc" );
+        assertEquals( 2, cmc.getRequestCount() );
+        assertEquals( 1, cmc.getErrorCount() );
+        assertEquals( Long.valueOf( 1 ), cmc.getErrorCounts().get( "1002" ) );
+        assertTrue( cmc.getBytesReceived() > 0 );
+        assertEquals( 2, cmc.getRequestLatency().getCount() );
+        assertEquals( 4, engine.getMetrics().getProvider( "cca" ).getRequestCount() );
+        assertEquals( 2, engine.getMetrics().getLatency( "refresh" ).getCount() );
+        assertTrue( engine.getMetrics().dump().contains( "fetchCrypto" ) );
+    }
+
+    public void testFlightRecorderEvents() throws Exception
+    {
+        Path file = Files.createTempFile( "cfsticker", ".jfr" );
+
+        try ( Recording recording = new Recording() )
+        {
+            recording.enable( QuoteFetchEvent.class );
+            recording.enable( QuoteRequestEvent.class );
+            recording.enable( QuoteParseEvent.class );
+            recording.start();
+            engine.updateAll();
+            recording.stop();
+            recording.dump( file );
+        }
+
+        int fetches = 0;
+        int requests = 0;
+        long payload = 0;
+
+        for ( RecordedEvent event : RecordingFile.readAllEvents( file ) )
+        {
+            String name = event.getEventType().getName();
+
+            if ( name.equals( "com.brooksideas.cfsticker.QuoteFetch" ) )
+            {
+                fetches++;
+
+                if ( event.getString( "quoteType" ).equals( "crypto" ) )
+                {
+                    assertEquals( "cmc", event.getString( "provider" ) );
+                    assertEquals( 3, event.getInt( "symbolCount" ) );
+                }
+            }
+            else if ( name.equals( "com.brooksideas.cfsticker.QuoteRequest" ) )
+            {
+                requests++;
+                assertEquals( 200, event.getInt( "statusCode" ) );
+            }
+            else if ( name.equals( "com.brooksideas.cfsticker.QuoteParse" ) )
+            {
+                payload += event.getLong( "payloadSize" );
+            }
+        }
+
+        Files.delete( file );
+        assertEquals( 3, fetches );
+        assertEquals( 4, requests );
+        assertEquals( engine.getMetrics().getProvider( "cmc" ).getBytesReceived()
+            + engine.getMetrics().getProvider( "cca" ).getBytesReceived()
+            + engine.getMetrics().getProvider( "iex" ).getBytesReceived(), payload );
+    }
+
+    public void testFlightRecorderFailedRequests() throws Exception
+    {
+        Path file = Files.createTempFile( "cfsticker", ".jfr" );
+        stub.stop();
+
+        try ( Recording recording = new Recording() )
+        {
+            recording.enable( QuoteRequestEvent.class );
+            recording.start();
+            engine.updateAll();
+            recording.stop();
+            recording.dump( file );
+        }
+
+        int requests = 0;
+
+        for ( RecordedEvent event : RecordingFile.readAllEvents( file ) )
+        {
+            if ( event.getEventType().getName().equals( "com.brooksideas.cfsticker.QuoteRequest" ) )
+            {
+                requests++;
+                assertEquals( -1, event.getInt( "statusCode" ) );
+            }
+        }
+
+        Files.delete( file );
+        assertEquals( 4, requests );
+    }
+
+    public void testRecordedResponse()
+    {
+        stub.setRecordedResponse( StubProviderServer.ccaPath, "{\"CAD_USD\":0.7312,\"EUR_USD\":1.16672}" );
+        engine.updateAll();
+
+        assertEquals( 0.731, snapshot.getFiatQuotes().get( "CAD" ).getPrice(), 0.0 );
+        assertEquals( 1.17, snapshot.getFiatQuotes().get( "EUR" ).getPrice(), 0.0 );
+    }
+
+    public void testWarmStartFromCache() throws Exception
+    {
+        File file = File.createTempFile( "cfsticker-quotes", ".json" );
+        file.delete();
+        config.setQuoteCacheFile( file.getPath() );
+        QuoteEngine cachingEngine = new QuoteEngine( config, new ObjectMapper() );
+        cachingEngine.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            cachingEngine.updateAll();
+        }
+        finally
+        {
+            cachingEngine.stop();
+        }
+
+        QuoteSnapshot cached = new QuoteCache( new ObjectMapper(), file.toPath() ).load();
+        file.delete();
+
+        CryptoQuote btc = cached.getCryptoQuotes().get( "BTC" );
+        assertTrue( btc.isStale() );
+        assertEquals( snapshot.getCryptoQuotes().get( "BTC" ).getPrice(), btc.getPrice(), 0.0 );
+        assertEquals( snapshot.getCryptoQuotes().get( "BTC" ).getRank(), btc.getRank() );
+        assertEquals( snapshot.getTimestamp(), cached.getTimestamp() );
+        assertTrue( cached.getFiatQuotes().get( "EUR" ).isStale() );
+        assertEquals( 2, cached.getStockQuotes().size() );
+
+        assertNull( new QuoteCache( new ObjectMapper(), file.toPath() ).load() );
+    }
+
+    public void testFailedRefreshKeepsCache() throws Exception
+    {
+        File file = File.createTempFile( "cfsticker-quotes", ".json" );
+        file.delete();
+        config.setQuoteCacheFile( file.getPath() );
+        QuoteCache cache = new QuoteCache( new ObjectMapper(), file.toPath() );
+        QuoteEngine cachingEngine = new QuoteEngine( config, new ObjectMapper() );
+
+        try
+        {
+            cachingEngine.updateAll();
+        }
+        finally
+        {
+            cachingEngine.stop();
+        }
+
+        QuoteSnapshot cached = cache.load();
+
+        // A fresh launch that cannot fetch anything keeps the saved quotes
+        stub.setErrorRate( 1.0 );
+        cachingEngine = new QuoteEngine( config, new ObjectMapper() );
+
+        try
+        {
+            cachingEngine.updateAll();
+        }
+        finally
+        {
+            cachingEngine.stop();
+        }
+
+        QuoteSnapshot reloaded = cache.load();
+        file.delete();
+
+        assertEquals( cached.getTimestamp(), reloaded.getTimestamp() );
+        assertEquals( cached.getCryptoQuotes().get( "BTC" ).getPrice(), reloaded.getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+        assertEquals( cached.getFiatQuotes().get( "EUR" ).getPrice(), reloaded.getFiatQuotes().get( "EUR" ).getPrice(), 0.0 );
+        assertEquals( cached.getStockQuotes().get( "QQQ" ).getPrice(), reloaded.getStockQuotes().get( "QQQ" ).getPrice(), 0.0 );
+    }
+
+    public void testSharedQuotes() throws Exception
+    {
+        File file = File.createTempFile( "cfsticker-quotes", ".shm" );
+        File lockFile = new File( file.getPath() + ".lock" );
+        config.setShareQuotes( true );
+        config.setSharedQuoteFile( file.getPath() );
+        QuoteEngine leader = new QuoteEngine( config, new ObjectMapper() );
+        config.setStocks( new ArrayList<String>( Arrays.asList( "COIN", "QQQ", "SPY" ) ) );
+        QuoteEngine follower = new QuoteEngine( config, new ObjectMapper() );
+        follower.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            leader.updateAll();
+            assertTrue( leader.isLeader() );
+            assertEquals( 4, stub.getRequestCount() );
+
+            // Only the stock the leader does not have is fetched
+            follower.updateAll();
+            assertFalse( follower.isLeader() );
+            assertEquals( 5, stub.getRequestCount() );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+            assertTrue( snapshot.getFiatQuotes().get( "GBP" ).getPrice() > 0.0 );
+            assertTrue( snapshot.getStockQuotes().get( "SPY" ).getPrice() > 0.0 );
+
+            // The follower takes over when the leader stops
+            leader.stop();
+            follower.updateAll();
+            assertTrue( follower.isLeader() );
+            assertEquals( 9, stub.getRequestCount() );
+        }
+        finally
+        {
+            leader.stop();
+            follower.stop();
+            file.delete();
+            lockFile.delete();
+        }
+    }
+
+    public void testOutdatedSharedQuotes() throws Exception
+    {
+        File file = File.createTempFile( "cfsticker-quotes", ".shm" );
+        File lockFile = new File( file.getPath() + ".lock" );
+        config.setShareQuotes( true );
+        config.setSharedQuoteFile( file.getPath() );
+        config.setUpdateIntervalSeconds( 1 );
+        config.setCircuitBreakerFailures( 3 );
+        QuoteEngine leader = new QuoteEngine( config, new ObjectMapper() );
+        QuoteEngine follower = new QuoteEngine( config, new ObjectMapper() );
+        follower.setQuoteListener( s -> snapshot = s );
+
+        try
+        {
+            leader.updateAll();
+            follower.updateAll();
+            assertEquals( 4, stub.getRequestCount() );
+            assertFalse( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+
+            // The leader has not written for two intervals, so the follower
+            // fetches everything and keeps the shared quotes as stale
+            Thread.sleep( 2100 );
+            stub.setErrorRate( 1.0 );
+            follower.updateAll();
+            assertEquals( 8, stub.getRequestCount() );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).getPrice() > 0.0 );
+            assertTrue( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+
+            stub.setErrorRate( 0.0 );
+            follower.updateAll();
+            assertEquals( 12, stub.getRequestCount() );
+            assertFalse( snapshot.getCryptoQuotes().get( "BTC" ).isStale() );
+            assertFalse( follower.isLeader() );
+        }
+        finally
+        {
+            leader.stop();
+            follower.stop();
+            file.delete();
+            lockFile.delete();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Locale;
+import java.util.Random;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * QuoteFormatter output must match the String.format based App methods.
+ */
+public class QuoteFormatterTest
+    extends TestCase
+{
+    private Locale locale;
+    private QuoteFormatter formatter;
+    private StringBuilder sb;
+
+    public QuoteFormatterTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteFormatterTest.class );
+    }
+
+    protected void setUp()
+    {
+        // String.format uses the default locale's decimal separator
+        locale = Locale.getDefault();
+        Locale.setDefault( Locale.US );
+        formatter = new QuoteFormatter();
+        sb = new StringBuilder();
+    }
+
+    protected void tearDown()
+    {
+        Locale.setDefault( locale );
+    }
+
+    private void assertPrice( double price )
+    {
+        sb.setLength( 0 );
+        assertEquals( "price " + price, App.formatPrice( price ), formatter.appendPrice( sb, price ).toString() );
+    }
+
+    private void assertMarketCap( double marketCap )
+    {
+        sb.setLength( 0 );
+        assertEquals( "market cap " + marketCap, App.formatMarketCap( marketCap ), formatter.appendMarketCap( sb, marketCap ).toString() );
+    }
+
+    public void testTierBoundaries()
+    {
+        double[] values = { 0.0, 0.0005, 0.001, 0.9995, 0.99949, 1.0, 1.005, 1.015, 9.995, 10.0, 10.05, 99.95, 99.995, 99.999,
+            100.0, 100.5, 101.5, 999.5, 999.995, 1000.0, 9999.995, 10000.0, 10050.0, 99950.0, 99999.99, 100000.0, 100500.0,
+            1.0e12, 123456789.5 };
+
+        for ( double value : values )
+        {
+            assertPrice( value );
+            assertMarketCap( value );
+        }
+    }
+
+    public void testHalfUpTies()
+    {
+        // Every value with a 5 in the first dropped decimal place
+        for ( int i = 0; i < 100000; i++ )
+        {
+            assertPrice( ( i * 10 + 5 ) / 10000.0 );
+            assertPrice( ( i * 10 + 5 ) / 1000.0 );
+            assertMarketCap( ( i * 10 + 5 ) / 1000.0 );
+            assertMarketCap( ( i * 10 + 5 ) / 100.0 );
+        }
+    }
+
+    public void testRandomValues()
+    {
+        Random random = new Random( 42 );
+
+        for ( int i = 0; i < 200000; i++ )
+        {
+            double value = Math.exp( -8.0 + 30.0 * random.nextDouble() );
+            assertPrice( value );
+            assertMarketCap( value );
+            assertPrice( QuoteParser.roundPrice( value ) );
+            assertMarketCap( Math.round( value * 100.0 ) / 100.0 );
+        }
+    }
+
+    public void testNegativeAndSpecialValues()
+    {
+        double[] values = { -0.0, -0.0004, -0.5, -1.005, -250.5, Double.NaN, Double.POSITIVE_INFINITY, 1.0e19 };
+
+        for ( double value : values )
+        {
+            assertPrice( value );
+            assertMarketCap( value );
+        }
+    }
+
+    public void testWriteIntoBuffer()
+    {
+        char[] out = new char[16];
+        out[0] = '$';
+        int end = QuoteFormatter.writePrice( 0.0525694308162, out, 1 );
+        assertEquals( "$0.053", new String( out, 0, end ) );
+
+        end = QuoteFormatter.writeMarketCap( 1362.97, out, 0 );
+        assertEquals( "1.36b", new String( out, 0, end ) );
+    }
+}
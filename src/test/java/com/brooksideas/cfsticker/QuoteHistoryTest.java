@@ -0,0 +1,77 @@
+package com.brooksideas.cfsticker;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.brooksideas.cfsticker.QuoteHistory.Samples;
+
+/**
+ * Unit test for the quote history ring buffers.
+ */
+public class QuoteHistoryTest
+    extends TestCase
+{
+    public QuoteHistoryTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteHistoryTest.class );
+    }
+
+    public void testRingBuffer()
+    {
+        QuoteHistory history = new QuoteHistory( 40 );
+        StockQuote quote = new StockQuote( "QQQ" );
+
+        for ( int i = 1; i <= 100; i++ )
+        {
+            quote.setPrice( i );
+            assertTrue( history.record( quote, i * 1000L ) );
+        }
+
+        // Unchanged quotes are not recorded again
+        assertFalse( history.record( quote, 101000L ) );
+
+        // Nor are stale flag changes or quotes that were never fetched
+        quote.setStale( true );
+        assertFalse( history.record( quote, 102000L ) );
+        assertFalse( history.record( new StockQuote( "XYZ" ), 102000L ) );
+
+        Samples samples = history.getSamples( "QQQ" );
+        assertEquals( 40, samples.getSize() );
+        assertEquals( 61000L, samples.getTimestamps()[0] );
+        assertEquals( 61.0, samples.getPrices()[0], 0.0 );
+        assertEquals( 100.0, samples.getPrices()[39], 0.0 );
+        assertEquals( 0, history.getSize( "XYZ" ) );
+    }
+
+    public void testRange()
+    {
+        QuoteHistory history = new QuoteHistory( 10 );
+        CryptoQuote quote = new CryptoQuote( "BTC" );
+
+        for ( int i = 1; i <= 15; i++ )
+        {
+            quote.setPrice( 100.0 + i );
+            quote.setMarketCap( 1000.0 * i );
+            history.record( quote, i * 10L );
+        }
+
+        Samples range = history.getRange( "BTC", 80L, 120L );
+        assertEquals( 4, range.getSize() );
+        assertEquals( 80L, range.getTimestamps()[0] );
+        assertEquals( 110L, range.getTimestamps()[3] );
+        assertEquals( 8000.0, range.getMarketCaps()[0], 0.0 );
+        assertEquals( 3.0 / 108.0 * 100.0, range.getPriceChangePercent(), 1e-9 );
+
+        assertEquals( 0, history.getRange( "BTC", 0L, 60L ).getSize() );
+        assertEquals( 10, history.getRange( "BTC", 0L, 1000L ).getSize() );
+
+        history.remove( "BTC" );
+        assertEquals( 0, history.getSamples( "BTC" ).getSize() );
+    }
+}
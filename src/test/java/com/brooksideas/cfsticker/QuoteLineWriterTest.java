@@ -0,0 +1,63 @@
+package com.brooksideas.cfsticker;
+
+import java.io.ByteArrayOutputStream;
+import java.util.TreeMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the JSON lines quote output of the headless app.
+ */
+public class QuoteLineWriterTest
+    extends TestCase
+{
+    public QuoteLineWriterTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteLineWriterTest.class );
+    }
+
+    public void testChangedQuoteLines() throws Exception
+    {
+        TreeMap<String, CryptoQuote> cryptos = new TreeMap<String, CryptoQuote>();
+        TreeMap<String, FiatQuote> fiats = new TreeMap<String, FiatQuote>();
+        TreeMap<String, StockQuote> stocks = new TreeMap<String, StockQuote>();
+        CryptoQuote btc = new CryptoQuote( "BTC" );
+        btc.setRank( 1 );
+        btc.setPrice( 10128.0 );
+        cryptos.put( "BTC", btc );
+        FiatQuote eur = new FiatQuote( "EUR" );
+        eur.setPrice( 1.17 );
+        fiats.put( "EUR", eur );
+        stocks.put( "QQQ", new StockQuote( "QQQ" ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        QuoteLineWriter writer = new QuoteLineWriter( new JsonFactory(), out );
+
+        // The QQQ quote was never fetched
+        assertEquals( 2, writer.write( new QuoteSnapshot( 1000L, cryptos, fiats, stocks ) ) );
+        String[] lines = out.toString( "UTF-8" ).split( "\n" );
+        assertEquals( 2, lines.length );
+
+        JsonNode line = new ObjectMapper().readTree( lines[0] );
+        assertEquals( "crypto", line.get( "type" ).asText() );
+        assertEquals( "BTC", line.get( "symbol" ).asText() );
+        assertEquals( 1000L, line.get( "timestamp" ).asLong() );
+        assertEquals( 10128.0, line.get( "price" ).asDouble(), 0.0 );
+        assertEquals( 1, line.get( "rank" ).asInt() );
+        assertNull( new ObjectMapper().readTree( lines[1] ).get( "marketCap" ) );
+
+        // Only the changed quote is written again
+        btc.setPrice( 10200.0 );
+        assertEquals( 1, writer.write( new QuoteSnapshot( 2000L, cryptos, fiats, stocks ) ) );
+        writer.close();
+    }
+}
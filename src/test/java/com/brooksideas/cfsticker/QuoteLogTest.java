@@ -0,0 +1,181 @@
+package com.brooksideas.cfsticker;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeMap;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the memory-mapped quote log.
+ */
+public class QuoteLogTest
+    extends TestCase
+{
+    private Path directory;
+
+    public QuoteLogTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteLogTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        directory = Files.createTempDirectory( "quotelog" );
+    }
+
+    protected void tearDown()
+    {
+        for ( File file : directory.toFile().listFiles() )
+        {
+            file.delete();
+        }
+
+        directory.toFile().delete();
+    }
+
+    public void testAppendAndRead() throws Exception
+    {
+        CryptoQuote btc = new CryptoQuote( "BTC" );
+        btc.setRank( 1 );
+        btc.setPrice( 10128.0 );
+        btc.setMarketCap( 181244.77 );
+        btc.setPercentChange24h( -2.2 );
+        FiatQuote eur = new FiatQuote( "EUR" );
+        eur.setPrice( 1.17 );
+
+        QuoteLog log = new QuoteLog( directory, 100, 4 );
+        log.append( btc, 1000L );
+        log.append( eur, 1000L );
+        log.close();
+
+        QuoteLog.Reader reader = QuoteLog.openReader( directory );
+        assertTrue( reader.next() );
+        assertEquals( 0L, reader.getSequence() );
+        assertEquals( 1000L, reader.getTimestamp() );
+        assertEquals( QuoteLog.cryptoType, reader.getType() );
+        assertEquals( "BTC", reader.getSymbol() );
+        assertEquals( 1, reader.getRank() );
+        assertEquals( 10128.0, reader.getPrice(), 0.0 );
+        assertEquals( 181244.77, reader.getMarketCap(), 0.0 );
+        assertEquals( -2.2, reader.getPercentChange24h(), 0.0 );
+        assertTrue( reader.next() );
+        assertEquals( QuoteLog.fiatType, reader.getType() );
+        assertEquals( "EUR", reader.getSymbol() );
+        assertFalse( reader.next() );
+        reader.close();
+    }
+
+    public void testRollAndRetention() throws Exception
+    {
+        StockQuote quote = new StockQuote( "QQQ" );
+        QuoteLog log = new QuoteLog( directory, 10, 3 );
+
+        for ( int i = 1; i <= 45; i++ )
+        {
+            quote.setPrice( i );
+            log.append( quote, i );
+        }
+
+        log.close();
+
+        // Segments start at 10, 20, 30 and 40, the first two were deleted
+        assertEquals( 3, directory.toFile().list( ( dir, name ) -> name.endsWith( ".log" ) ).length );
+
+        QuoteLog.Reader reader = QuoteLog.openReader( directory );
+        assertTrue( reader.next() );
+        assertEquals( 20L, reader.getSequence() );
+        assertEquals( 21.0, reader.getPrice(), 0.0 );
+        int count = 1;
+
+        while ( reader.next() )
+        {
+            count++;
+        }
+
+        assertEquals( 25, count );
+        reader.close();
+    }
+
+    public void testRecoverTornRecord() throws Exception
+    {
+        StockQuote quote = new StockQuote( "QQQ" );
+        QuoteLog log = new QuoteLog( directory, 100, 4 );
+
+        for ( int i = 1; i <= 5; i++ )
+        {
+            quote.setPrice( i );
+            log.append( quote, i );
+        }
+
+        log.close();
+
+        // Corrupt the price of the last record as if the write was torn
+        File segment = directory.toFile().listFiles()[0];
+
+        try ( RandomAccessFile file = new RandomAccessFile( segment, "rw" ) )
+        {
+            file.seek( 4 * QuoteLog.recordSize + 32 );
+            file.writeLong( 0x7ff8dead0000beefL );
+        }
+
+        log = new QuoteLog( directory, 100, 4 );
+        assertEquals( 4L, log.getNextSequence() );
+        quote.setPrice( 6 );
+        log.append( quote, 6 );
+        log.close();
+
+        QuoteLog.Reader reader = QuoteLog.openReader( directory );
+        int count = 0;
+        double price = 0.0;
+
+        while ( reader.next() )
+        {
+            count++;
+            price = reader.getPrice();
+        }
+
+        reader.close();
+        assertEquals( 5, count );
+        assertEquals( 6.0, price, 0.0 );
+    }
+
+    public void testAppendChangedForcesBatch() throws Exception
+    {
+        TreeMap<String, StockQuote> stocks = new TreeMap<String, StockQuote>();
+        StockQuote quote = new StockQuote( "QQQ" );
+        stocks.put( "QQQ", quote );
+        QuoteLog log = new QuoteLog( directory, 2, 4 );
+
+        // Each batch is on disk while the log is still open, across a roll
+        for ( int i = 1; i <= 3; i++ )
+        {
+            quote.setPrice( i );
+            QuoteSnapshot snapshot = new QuoteSnapshot( i, new TreeMap<String, CryptoQuote>(), new TreeMap<String, FiatQuote>(), stocks );
+            assertEquals( 1, log.appendChanged( snapshot ) );
+            assertEquals( 0, log.appendChanged( snapshot ) );
+
+            QuoteLog.Reader reader = QuoteLog.openReader( directory );
+            int count = 0;
+
+            while ( reader.next() )
+            {
+                count++;
+                assertEquals( (double)count, reader.getPrice(), 0.0 );
+            }
+
+            reader.close();
+            assertEquals( i, count );
+        }
+
+        log.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.brooksideas.cfsticker;
+
+import java.util.TreeMap;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.brooksideas.cfsticker.QuoteParser.ParseResult;
+
+/**
+ * Unit test for the streaming provider response parsers.
+ */
+public class QuoteParserTest
+    extends TestCase
+{
+    private static final JsonFactory factory = new JsonFactory();
+
+    public QuoteParserTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteParserTest.class );
+    }
+
+    public void testCryptoQuotes() throws Exception
+    {
+        String json = "{\"status\":{\"timestamp\":\"2019-08-25T03:52:39.810Z\",\"error_code\":0,\"error_message\":null,\"credit_count\":1},"
+            + "\"data\":{\"ADA\":{\"id\":2010,\"name\":\"Cardano\",\"symbol\":\"ADA\",\"tags\":[\"mineable\"],\"platform\":null,\"cmc_rank\":11,"
+            + "\"quote\":{\"USD\":{\"price\":0.0525694308162,\"volume_24h\":101258629.075106,\"percent_change_24h\":6.04116,\"market_cap\":1362971340.9141283}}},"
+            + "\"BTC\":{\"id\":1,\"name\":\"Bitcoin\",\"cmc_rank\":1,"
+            + "\"quote\":{\"USD\":{\"price\":10127.994658,\"percent_change_24h\":-2.20153,\"market_cap\":181244768802.63965}}}}}";
+        TreeMap<String, CryptoQuote> quotes = new TreeMap<String, CryptoQuote>();
+        quotes.put( "ADA", new CryptoQuote( "ADA" ) );
+        quotes.put( "BTC", new CryptoQuote( "BTC" ) );
+        quotes.put( "XYZ", new CryptoQuote( "XYZ" ) );
+
+        JsonParser parser = factory.createParser( json );
+        ParseResult result = QuoteParser.parseCryptoQuotes( parser, quotes );
+
+        assertEquals( 0, result.getErrorCode() );
+        assertEquals( 2, result.getSymbols().size() );
+        assertFalse( result.getSymbols().contains( "XYZ" ) );
+
+        CryptoQuote ada = quotes.get( "ADA" );
+        assertEquals( "Cardano", ada.getName() );
+        assertEquals( 11, ada.getRank() );
+        assertEquals( 0.053, ada.getPrice(), 0.0 );
+        assertEquals( 1362.97, ada.getMarketCap(), 0.0 );
+        assertEquals( 6.04116, ada.getPercentChange24h(), 0.0 );
+
+        CryptoQuote btc = quotes.get( "BTC" );
+        assertEquals( 10128.0, btc.getPrice(), 0.0 );
+        assertEquals( 181244.77, btc.getMarketCap(), 0.0 );
+    }
+
+    public void testVersionOnlyChangesWithValues() throws Exception
+    {
+        TreeMap<String, FiatQuote> quotes = new TreeMap<String, FiatQuote>();
+        quotes.put( "EUR", new FiatQuote( "EUR" ) );
+        quotes.put( "MXN", new FiatQuote( "MXN" ) );
+
+        QuoteParser.parseFiatQuotes( factory.createParser( "{\"EUR_USD\":1.16672,\"MXN_USD\":0.05123}" ), quotes );
+        long eur = quotes.get( "EUR" ).getVersion();
+        long mxn = quotes.get( "MXN" ).getVersion();
+        assertTrue( eur > 0 );
+
+        // Same rounded EUR price, new MXN price
+        QuoteParser.parseFiatQuotes( factory.createParser( "{\"EUR_USD\":1.16801,\"MXN_USD\":0.05223}" ), quotes );
+        assertEquals( eur, quotes.get( "EUR" ).getVersion() );
+        assertTrue( quotes.get( "MXN" ).getVersion() > mxn );
+        assertEquals( quotes.get( "MXN" ).getVersion(), new FiatQuote( quotes.get( "MXN" ) ).getVersion() );
+    }
+
+    public void testCryptoError() throws Exception
+    {
+        String json = "{\"status\":{\"error_code\":1002,\"error_message\":\"API key missing.\"}}";
+        ParseResult result = QuoteParser.parseCryptoQuotes( factory.createParser( json ), new TreeMap<String, CryptoQuote>() );
+
+        assertEquals( 1002, result.getErrorCode() );
+        assertEquals( "API key missing.", result.getErrorMessage() );
+    }
+
+    public void testFiatQuotes() throws Exception
+    {
+        TreeMap<String, FiatQuote> quotes = new TreeMap<String, FiatQuote>();
+        quotes.put( "EUR", new FiatQuote( "EUR" ) );
+        quotes.put( "MXN", new FiatQuote( "MXN" ) );
+
+        ParseResult result = QuoteParser.parseFiatQuotes( factory.createParser( "{\"EUR_USD\":1.16672,\"MXN_USD\":{\"val\":0.05123}}" ), quotes );
+
+        assertEquals( 2, result.getSymbols().size() );
+        assertEquals( 1.17, quotes.get( "EUR" ).getPrice(), 0.0 );
+        assertEquals( 0.051, quotes.get( "MXN" ).getPrice(), 0.0 );
+    }
+
+    public void testStockQuotes() throws Exception
+    {
+        String json = "{\"QQQ\":{\"quote\":{\"symbol\":\"QQQ\",\"companyName\":\"Invesco QQQ Trust\",\"latestPrice\":187.11,"
+            + "\"latestTime\":\"June 19, 2019\",\"changePercent\":0.00376,\"marketCap\":1234567890,\"peRatio\":null}},"
+            + "\"JOBY\":{\"quote\":{\"companyName\":\"Joby Aviation\",\"latestPrice\":5,\"changePercent\":-0.02,\"marketCap\":null}}}";
+        TreeMap<String, StockQuote> quotes = new TreeMap<String, StockQuote>();
+        quotes.put( "QQQ", new StockQuote( "QQQ" ) );
+        quotes.put( "JOBY", new StockQuote( "JOBY" ) );
+        quotes.put( "XYZ", new StockQuote( "XYZ" ) );
+
+        ParseResult result = QuoteParser.parseStockQuotes( factory.createParser( json ), quotes );
+
+        assertEquals( 2, result.getSymbols().size() );
+
+        StockQuote quote = quotes.get( "QQQ" );
+        assertEquals( "Invesco QQQ Trust", quote.getName() );
+        assertEquals( 187.0, quote.getPrice(), 0.0 );
+        assertEquals( 1235.0, quote.getMarketCap(), 0.0 );
+        assertEquals( 0.376, quote.getPercentChange24h(), 1e-9 );
+
+        quote = quotes.get( "JOBY" );
+        assertEquals( 5.0, quote.getPrice(), 0.0 );
+        assertEquals( -2.0, quote.getPercentChange24h(), 1e-9 );
+    }
+}
@@ -0,0 +1,156 @@
+package com.brooksideas.cfsticker;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Quote server snapshot endpoint and event stream.
+ */
+public class QuoteServerTest
+    extends TestCase
+{
+    private ObjectMapper mapper;
+    private QuoteServer server;
+    private TreeMap<String, CryptoQuote> cryptos;
+    private TreeMap<String, FiatQuote> fiats;
+    private TreeMap<String, StockQuote> stocks;
+
+    public QuoteServerTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( QuoteServerTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        mapper = new ObjectMapper();
+        server = new QuoteServer( mapper.getFactory(), 0, Executors.newCachedThreadPool() );
+        server.start();
+
+        cryptos = new TreeMap<String, CryptoQuote>();
+        fiats = new TreeMap<String, FiatQuote>();
+        stocks = new TreeMap<String, StockQuote>();
+        CryptoQuote btc = new CryptoQuote( "BTC" );
+        btc.setPrice( 10128.0 );
+        cryptos.put( "BTC", btc );
+        FiatQuote eur = new FiatQuote( "EUR" );
+        eur.setPrice( 1.17 );
+        fiats.put( "EUR", eur );
+    }
+
+    protected void tearDown()
+    {
+        server.close();
+    }
+
+    public void testSnapshot() throws Exception
+    {
+        HttpURLConnection connection = open( QuoteServer.quotesPath );
+        assertEquals( 503, connection.getResponseCode() );
+
+        server.quotesUpdated( new QuoteSnapshot( 1000L, cryptos, fiats, stocks ) );
+        connection = open( QuoteServer.quotesPath );
+        assertEquals( 200, connection.getResponseCode() );
+
+        JsonNode json = mapper.readTree( connection.getInputStream() );
+        assertEquals( 1000L, json.get( "timestamp" ).asLong() );
+        assertEquals( 2, json.get( "quotes" ).size() );
+        assertEquals( "BTC", json.get( "quotes" ).get( 0 ).get( "symbol" ).asText() );
+    }
+
+    public void testEvents() throws Exception
+    {
+        server.quotesUpdated( new QuoteSnapshot( 1000L, cryptos, fiats, stocks ) );
+        HttpURLConnection connection = open( QuoteServer.eventsPath );
+        assertEquals( "text/event-stream", connection.getContentType() );
+        BufferedReader in = new BufferedReader( new InputStreamReader( connection.getInputStream(), StandardCharsets.UTF_8 ) );
+
+        assertEquals( "event: snapshot", in.readLine() );
+        assertEquals( 2, mapper.readTree( data( in.readLine() ) ).get( "quotes" ).size() );
+        assertEquals( "", in.readLine() );
+
+        // Only the changed quote is sent
+        cryptos.get( "BTC" ).setPrice( 10200.0 );
+        server.quotesUpdated( new QuoteSnapshot( 2000L, cryptos, fiats, stocks ) );
+        assertEquals( "event: quotes", in.readLine() );
+        JsonNode json = mapper.readTree( data( in.readLine() ) );
+        assertEquals( 2000L, json.get( "timestamp" ).asLong() );
+        assertEquals( 1, json.get( "quotes" ).size() );
+        assertEquals( 10200.0, json.get( "quotes" ).get( 0 ).get( "price" ).asDouble(), 0.0 );
+        assertEquals( 1, server.getSubscriberCount() );
+        connection.disconnect();
+    }
+
+    public void testSlowSubscriberFreesThread() throws Exception
+    {
+        // One thread, so /quotes is only served once the stream thread is free
+        server.close();
+        server = new QuoteServer( mapper.getFactory(), 0, Executors.newFixedThreadPool( 1 ) );
+        server.start();
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            StockQuote stock = new StockQuote( "S" + i );
+            stock.setPrice( 1.0 );
+            stocks.put( stock.getSymbol(), stock );
+        }
+
+        server.quotesUpdated( new QuoteSnapshot( 1000L, cryptos, fiats, stocks ) );
+
+        // Subscribe but never read
+        try ( Socket socket = new Socket( "127.0.0.1", server.getPort() ) )
+        {
+            socket.getOutputStream().write( ( "GET " + QuoteServer.eventsPath + " HTTP/1.1\r\nHost: localhost\r\n\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+
+            for ( int i = 0; i < 100 && server.getSubscriberCount() == 0; i++ )
+            {
+                Thread.sleep( 50 );
+            }
+
+            assertEquals( 1, server.getSubscriberCount() );
+
+            for ( int i = 0; i < 5000 && server.getSubscriberCount() > 0; i++ )
+            {
+                for ( StockQuote stock : stocks.values() )
+                {
+                    stock.setPrice( stock.getPrice() + 1.0 );
+                }
+
+                server.quotesUpdated( new QuoteSnapshot( 2000L + i, cryptos, fiats, stocks ) );
+            }
+
+            assertEquals( 0, server.getSubscriberCount() );
+
+            HttpURLConnection connection = open( QuoteServer.quotesPath );
+            connection.setReadTimeout( 5000 );
+            assertEquals( 200, connection.getResponseCode() );
+        }
+    }
+
+    private HttpURLConnection open( String path ) throws Exception
+    {
+        URL url = new URL( "http://127.0.0.1:" + server.getPort() + path );
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static String data( String line )
+    {
+        assertTrue( line.startsWith( "data: " ) );
+        return line.substring( "data: ".length() );
+    }
+}
@@ -0,0 +1,113 @@
+package com.brooksideas.cfsticker;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeMap;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for the quote table shared between instances.
+ */
+public class SharedQuoteTableTest
+    extends TestCase
+{
+    private Path directory;
+
+    public SharedQuoteTableTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SharedQuoteTableTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        directory = Files.createTempDirectory( "sharedquotes" );
+    }
+
+    protected void tearDown()
+    {
+        for ( File file : directory.toFile().listFiles() )
+        {
+            file.delete();
+        }
+
+        directory.toFile().delete();
+    }
+
+    private static QuoteSnapshot snapshot( double price )
+    {
+        TreeMap<String, CryptoQuote> cryptos = new TreeMap<String, CryptoQuote>();
+        TreeMap<String, FiatQuote> fiats = new TreeMap<String, FiatQuote>();
+        TreeMap<String, StockQuote> stocks = new TreeMap<String, StockQuote>();
+        CryptoQuote btc = new CryptoQuote( "BTC" );
+        btc.setRank( 1 );
+        btc.setPrice( price );
+        btc.setMarketCap( 181244.77 );
+        btc.setPercentChange24h( -2.2 );
+        cryptos.put( "BTC", btc );
+        FiatQuote eur = new FiatQuote( "EUR" );
+        eur.setPrice( 1.17 );
+        eur.setStale( true );
+        fiats.put( "EUR", eur );
+        // Never fetched, so not shared
+        stocks.put( "AAPL", new StockQuote( "AAPL" ) );
+
+        return new QuoteSnapshot( 1000L, cryptos, fiats, stocks );
+    }
+
+    public void testWriteAndRead() throws Exception
+    {
+        SharedQuoteTable table = new SharedQuoteTable( directory.resolve( "quotes.shm" ), 16 );
+        assertNull( table.read() );
+        assertTrue( table.tryLead() );
+        long sequence = table.getSequence();
+        table.write( snapshot( 10128.0 ) );
+        assertEquals( sequence + 2, table.getSequence() );
+
+        QuoteSnapshot shared = table.read();
+        table.close();
+
+        assertEquals( 1000L, shared.getTimestamp() );
+        CryptoQuote btc = shared.getCryptoQuotes().get( "BTC" );
+        assertEquals( 1, btc.getRank() );
+        assertEquals( 10128.0, btc.getPrice(), 0.0 );
+        assertEquals( 181244.77, btc.getMarketCap(), 0.0 );
+        assertEquals( -2.2, btc.getPercentChange24h(), 0.0 );
+        assertFalse( btc.isStale() );
+        assertTrue( shared.getFiatQuotes().get( "EUR" ).isStale() );
+        assertTrue( shared.getStockQuotes().isEmpty() );
+    }
+
+    public void testLeaderHandover() throws Exception
+    {
+        Path file = directory.resolve( "quotes.shm" );
+        SharedQuoteTable leader = new SharedQuoteTable( file, 16 );
+        SharedQuoteTable follower = new SharedQuoteTable( file, 16 );
+        assertTrue( leader.tryLead() );
+        assertFalse( follower.tryLead() );
+        leader.write( snapshot( 10128.0 ) );
+        assertEquals( 10128.0, follower.read().getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+
+        try
+        {
+            follower.write( snapshot( 1.0 ) );
+            fail( "Follower wrote the table" );
+        }
+        catch ( IllegalStateException ise )
+        {
+        }
+
+        leader.close();
+        assertTrue( follower.tryLead() );
+        follower.write( snapshot( 10200.0 ) );
+        assertEquals( 10200.0, follower.read().getCryptoQuotes().get( "BTC" ).getPrice(), 0.0 );
+        follower.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.brooksideas.cfsticker;
+
+import java.util.Map;
+
+/**
+ * Crypto quotes that ignore interrupts, like a request that is still
+ * parsing its response when the refresh deadline cancels it. The first
+ * quote is set right away and the others after stallMillis.
+ */
+public class StallingQuoteProvider implements QuoteProvider {
+    public static final int stallMillis = 1500;
+    public static final double price = 100.0;
+
+    public String getName() {
+        return "stalling";
+    }
+
+    public void init(ProviderContext context) {
+    }
+
+    @Override
+    public void getCryptoQuotes(Map<String, CryptoQuote> quotes) {
+        boolean first = true;
+
+        for (CryptoQuote quote : quotes.values()) {
+            if (!first) {
+                stall();
+            }
+
+            quote.setPrice(price);
+            first = false;
+        }
+    }
+
+    private static void stall() {
+        long deadline = System.nanoTime() + stallMillis * 1000000L;
+        boolean interrupted = false;
+
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(Math.max(1, (deadline - System.nanoTime()) / 1000000L));
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
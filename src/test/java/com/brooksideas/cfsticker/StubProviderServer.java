@@ -0,0 +1,416 @@
+package com.brooksideas.cfsticker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server that answers like coinmarketcap, currencyconverterapi
+ * and iex for offline testing.
+ *
+ * Responses are generated in each provider's JSON shape for whatever
+ * symbols are asked for, or served from recorded bodies. Latency, error
+ * rate, the cmc status.error_code of errors and the rate of 429 rate limit
+ * responses can be set while the server is running. The headers of the
+ * last request to each path are kept, and responses can be gzipped for
+ * clients that accept it.
+ *
+ * Run main to benchmark refreshes against it:
+ * StubProviderServer [symbolsPerType] [refreshes] [latencyMillis] [errorRate]
+ *
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.1.0:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.brooksideas.cfsticker.StubProviderServer -Dexec.args="1000 50 20"
+ */
+public class StubProviderServer {
+    public static final String cmcPath = "/v1/cryptocurrency/quotes/latest";
+    public static final String ccaPath = "/api/v7/convert";
+    public static final String iexPath = "/v1/stock/market/batch";
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ConcurrentHashMap<String, String> recordedResponses = new ConcurrentHashMap<String, String>();
+    private AtomicInteger requestCount = new AtomicInteger();
+    private volatile int latencyMillis;
+    private AtomicInteger stalledRequests = new AtomicInteger();
+    private volatile int stallMillis;
+    private volatile int bodyStallMillis;
+    private volatile double errorRate;
+    private volatile int errorCode = 500;
+    private volatile double rateLimitRate;
+    private volatile boolean gzip;
+    private volatile boolean truncateGzip;
+    private ConcurrentHashMap<String, Headers> lastRequestHeaders = new ConcurrentHashMap<String, Headers>();
+    private AtomicInteger gzipCount = new AtomicInteger();
+
+    public StubProviderServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(cmcPath, this::handleCmc);
+        server.createContext(ccaPath, this::handleCca);
+        server.createContext(iexPath, this::handleIex);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int getRequestCount() { return requestCount.get(); }
+
+    public void setLatencyMillis(int x) { latencyMillis = x; }
+
+    /**
+     * Sets whether responses are gzipped when the request accepts gzip.
+     */
+    public void setGzip(boolean x) { gzip = x; }
+
+    /**
+     * Sets whether gzipped responses are cut off inside the gzip header.
+     */
+    public void setTruncateGzip(boolean x) { truncateGzip = x; }
+
+    /**
+     * Returns the number of gzipped responses sent.
+     */
+    public int getGzipCount() { return gzipCount.get(); }
+
+    /**
+     * Returns the header of the last request to the path, or null.
+     */
+    public String getLastRequestHeader(String path, String name) {
+        Headers headers = lastRequestHeaders.get(path);
+        return headers == null ? null : headers.getFirst(name);
+    }
+
+    /**
+     * Delays only the next count requests by millis, like a tail latency
+     * spike.
+     */
+    public void stallRequests(int count, int millis) {
+        stallMillis = millis;
+        stalledRequests.set(count);
+    }
+
+    /**
+     * Sends the headers and the first half of every body right away and the
+     * rest after millis, like a server that stalls mid-response.
+     */
+    public void stallBodies(int millis) { bodyStallMillis = millis; }
+
+    /**
+     * Sets the fraction of requests, from 0 to 1, that fail.
+     */
+    public void setErrorRate(double x) { errorRate = x; }
+
+    /**
+     * Sets the cmc status.error_code returned by failed crypto requests.
+     */
+    public void setErrorCode(int x) { errorCode = x; }
+
+    /**
+     * Sets the fraction of requests, from 0 to 1, answered with 429.
+     */
+    public void setRateLimitRate(double x) { rateLimitRate = x; }
+
+    /**
+     * Serves the body for every request to the path instead of a generated
+     * response.
+     */
+    public void setRecordedResponse(String path, String body) {
+        recordedResponses.put(path, body);
+    }
+
+    /**
+     * Returns a config with every provider pointed at this server.
+     */
+    public Config createConfig() {
+        Config config = new Config();
+        config.setCmcApiKey("stub");
+        config.setCcaApiKey("stub");
+        config.setIexApiKey("stub");
+        config.setCmcBaseUrl(getBaseUrl());
+        config.setCcaBaseUrl(getBaseUrl());
+        config.setIexBaseUrl(getBaseUrl());
+        return config;
+    }
+
+    private void handleCmc(HttpExchange exchange) throws IOException {
+        if (delay(exchange)) {
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < rateLimitRate) {
+            send(exchange, 429, cmcStatus(1008, "You've exceeded your API Key's HTTP request rate limit."));
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            send(exchange, errorCode >= 1000 ? 400 : 500, cmcStatus(errorCode, "Stub error"));
+            return;
+        }
+
+        StringBuilder json = new StringBuilder(cmcStatus(0, null));
+        json.setLength(json.length() - 1);
+        json.append(",\"data\":{");
+        String[] symbols = getParameter(exchange, "symbol").split(",");
+
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = symbols[i];
+            Random random = new Random(symbol.hashCode() ^ System.nanoTime());
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(symbol).append("\":{\"id\":").append(i + 1)
+                .append(",\"name\":\"").append(symbol).append(" Coin\",\"symbol\":\"").append(symbol)
+                .append("\",\"slug\":\"").append(symbol.toLowerCase()).append("\",\"num_market_pairs\":102,\"tags\":[\"mineable\"],\"platform\":null,")
+                .append("\"cmc_rank\":").append(1 + random.nextInt(5000))
+                .append(",\"last_updated\":\"2019-08-25T03:52:05.000Z\",\"quote\":{\"USD\":{\"price\":").append(Math.exp(-3.0 + 13.0 * random.nextDouble()))
+                .append(",\"volume_24h\":101258629.075106,\"percent_change_1h\":2.79196,\"percent_change_24h\":").append(random.nextGaussian() * 5.0)
+                .append(",\"percent_change_7d\":11.2303,\"market_cap\":").append(Math.exp(16.0 + 11.0 * random.nextDouble()))
+                .append(",\"last_updated\":\"2019-08-25T03:52:05.000Z\"}}}");
+        }
+
+        json.append("}}");
+        send(exchange, 200, json.toString());
+    }
+
+    private void handleCca(HttpExchange exchange) throws IOException {
+        if (delay(exchange)) {
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < rateLimitRate) {
+            send(exchange, 429, "{\"status\":429,\"error\":\"Hourly request limit reached.\"}");
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            send(exchange, 400, "{\"status\":400,\"error\":\"Stub error\"}");
+            return;
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        String[] pairs = getParameter(exchange, "q").split(",");
+
+        for (int i = 0; i < pairs.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(pairs[i]).append("\":").append(0.05 + 1.5 * ThreadLocalRandom.current().nextDouble());
+        }
+
+        json.append('}');
+        send(exchange, 200, json.toString());
+    }
+
+    private void handleIex(HttpExchange exchange) throws IOException {
+        if (delay(exchange)) {
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < rateLimitRate) {
+            send(exchange, 429, "Too many requests");
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            send(exchange, 500, "Internal server error");
+            return;
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        String[] symbols = getParameter(exchange, "symbols").split(",");
+
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = symbols[i];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double price = Math.exp(13.0 * random.nextDouble() - 3.0);
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            json.append('"').append(symbol).append("\":{\"quote\":{\"symbol\":\"").append(symbol)
+                .append("\",\"companyName\":\"").append(symbol).append(" Inc\",\"calculationPrice\":\"close\",\"open\":").append(price)
+                .append(",\"latestPrice\":").append(price)
+                .append(",\"latestSource\":\"Close\",\"latestTime\":\"June 19, 2019\",\"latestVolume\":31665176,\"changePercent\":").append(random.nextGaussian() * 0.02)
+                .append(",\"marketCap\":").append((long)Math.exp(16.0 + 11.0 * random.nextDouble()))
+                .append(",\"peRatio\":null,\"week52High\":191.32,\"week52Low\":143.46}}");
+        }
+
+        json.append('}');
+        send(exchange, 200, json.toString());
+    }
+
+    /**
+     * Counts the request and waits out the latency. Returns true if the
+     * request was answered from a recorded response.
+     */
+    private boolean delay(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        lastRequestHeaders.put(exchange.getHttpContext().getPath(), exchange.getRequestHeaders());
+        int millis = latencyMillis;
+
+        if (stalledRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            millis += stallMillis;
+        }
+
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String recorded = recordedResponses.get(exchange.getHttpContext().getPath());
+
+        if (recorded != null) {
+            send(exchange, 200, recorded);
+            return true;
+        }
+
+        return false;
+    }
+
+    private static String cmcStatus(int errorCode, String errorMessage) {
+        String message = errorMessage == null ? "null" : "\"" + errorMessage + "\"";
+        return "{\"status\":{\"timestamp\":\"2019-08-25T03:52:39.810Z\",\"error_code\":" + errorCode + ",\"error_message\":" + message + ",\"elapsed\":7,\"credit_count\":1}}";
+    }
+
+    private static String getParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+
+        if (query == null) {
+            return "";
+        }
+
+        for (String parameter : query.split("&")) {
+            int i = parameter.indexOf('=');
+
+            if (i > 0 && parameter.substring(0, i).equals(name)) {
+                return URLDecoder.decode(parameter.substring(i + 1), StandardCharsets.UTF_8);
+            }
+        }
+
+        return "";
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+        if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+
+            bytes = compressed.toByteArray();
+
+            if (truncateGzip) {
+                bytes = Arrays.copyOf(bytes, 4);
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            gzipCount.incrementAndGet();
+        }
+
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (bodyStallMillis > 0) {
+                out.write(bytes, 0, bytes.length / 2);
+                out.flush();
+
+                try {
+                    Thread.sleep(bodyStallMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+
+                out.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+            } else {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Benchmarks engine refreshes against the stub server and prints the
+     * throughput and latency percentiles.
+     */
+    public static void main(String[] args) throws Exception {
+        int symbolCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int refreshes = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int latency = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double errors = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+
+        StubProviderServer stub = new StubProviderServer();
+        stub.setLatencyMillis(latency);
+        stub.setErrorRate(errors);
+        stub.start();
+
+        Config config = stub.createConfig();
+        config.setCryptos(SyntheticQuoteProvider.symbols("C", symbolCount));
+        config.setFiats(SyntheticQuoteProvider.symbols("F", symbolCount));
+        config.setStocks(SyntheticQuoteProvider.symbols("S", symbolCount));
+        config.setCcaMaxPairsPerRequest(100);
+        QuoteEngine engine = new QuoteEngine(config, new ObjectMapper());
+
+        // Warm up connections and code paths
+        engine.updateAll();
+        int startRequests = stub.getRequestCount();
+
+        long[] nanos = new long[refreshes];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < refreshes; i++) {
+            long t = System.nanoTime();
+            engine.updateAll();
+            nanos[i] = System.nanoTime() - t;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1.0e9;
+        Arrays.sort(nanos);
+        System.out.printf("%d symbols per type, %d refreshes, %d ms latency, %.2f error rate%n", symbolCount, refreshes, latency, errors);
+        System.out.printf("%d requests, %.2f refreshes/s, %.0f quotes/s%n", stub.getRequestCount() - startRequests, refreshes / seconds, 3.0 * symbolCount * refreshes / seconds);
+        System.out.printf("refresh ms p50 %.1f p90 %.1f p99 %.1f max %.1f%n", percentile(nanos, 0.50), percentile(nanos, 0.90), percentile(nanos, 0.99), nanos[refreshes - 1] / 1.0e6);
+
+        engine.stop();
+        stub.stop();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int)Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, i)] / 1.0e6;
+    }
+}
@@ -0,0 +1,112 @@
+package com.brooksideas.cfsticker;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import javax.swing.SwingConstants;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Ticker strip cells are added, removed and painted without a window.
+ */
+public class TickerStripTest
+    extends TestCase
+{
+    private TickerStrip strip;
+
+    public TickerStripTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TickerStripTest.class );
+    }
+
+    protected void setUp()
+    {
+        System.setProperty( "java.awt.headless", "true" );
+        strip = new TickerStrip( Color.green, Color.red );
+    }
+
+    public void testAddRemove()
+    {
+        strip.addTicker( "BTC" );
+        strip.addTicker( "EUR" );
+        strip.addTicker( "BTC" );
+        strip.addTicker( "QQQ" );
+        assertEquals( 3, strip.getTickerCount() );
+        assertEquals( 3 * TickerStrip.cellWidth, strip.getPreferredSize().width );
+
+        strip.removeTicker( "EUR" );
+        strip.removeTicker( "XXX" );
+        assertEquals( 2, strip.getTickerCount() );
+    }
+
+    public void testScrollIncrements()
+    {
+        int cell = TickerStrip.cellWidth;
+        Rectangle view = new Rectangle( cell + 10, 0, cell * 4 + 20, TickerStrip.cellHeight );
+
+        assertEquals( cell - 10, strip.getScrollableUnitIncrement( view, SwingConstants.HORIZONTAL, 1 ) );
+        assertEquals( 10, strip.getScrollableUnitIncrement( view, SwingConstants.HORIZONTAL, -1 ) );
+        assertEquals( cell * 4, strip.getScrollableBlockIncrement( view, SwingConstants.HORIZONTAL, 1 ) );
+        assertFalse( strip.getScrollableTracksViewportWidth() );
+    }
+
+    public void testPaintQuotes()
+    {
+        CryptoQuote crypto = new CryptoQuote( "BTC" );
+        crypto.setRank( 1 );
+        crypto.setPrice( 10127.99 );
+        crypto.setMarketCap( 181244.77 );
+        crypto.setPercentChange24h( -2.2 );
+        FiatQuote fiat = new FiatQuote( "EUR" );
+        fiat.setPrice( 1.16672 );
+        strip.addTicker( "BTC" );
+        strip.addTicker( "EUR" );
+        strip.setQuote( "BTC", crypto );
+        strip.setQuote( "EUR", fiat );
+        strip.setQuote( "XXX", fiat );
+
+        strip.setSize( strip.getPreferredSize() );
+        BufferedImage image = new BufferedImage( strip.getWidth(), strip.getHeight(), BufferedImage.TYPE_INT_RGB );
+        Graphics2D g = image.createGraphics();
+        strip.paint( g );
+        g.dispose();
+
+        // The crypto price is painted in the down colour
+        boolean red = false;
+
+        for ( int x = 0; x < TickerStrip.cellWidth && !red; x++ )
+        {
+            for ( int y = 0; y < image.getHeight() && !red; y++ )
+            {
+                red = ( image.getRGB( x, y ) & 0xffffff ) == 0xff0000;
+            }
+        }
+
+        assertTrue( red );
+    }
+
+    public void testJunkValues()
+    {
+        StockQuote stock = new StockQuote( "QQQ" );
+        stock.setPrice( 1e30 );
+        stock.setMarketCap( Double.MAX_VALUE );
+        strip.addTicker( "QQQ" );
+        strip.setQuote( "QQQ", stock );
+        stock.setPrice( -Double.MAX_VALUE );
+        strip.setQuote( "QQQ", stock );
+
+        strip.setSize( strip.getPreferredSize() );
+        BufferedImage image = new BufferedImage( strip.getWidth(), strip.getHeight(), BufferedImage.TYPE_INT_RGB );
+        Graphics2D g = image.createGraphics();
+        strip.paint( g );
+        g.dispose();
+    }
+}